@@ -0,0 +1,72 @@
+/**
+ * AUTHOR: Roberto J Gregoratti - rjg1g12@ecs.soton.ac.uk , University of Southampton ECS
+ * PROJECT: COMP2208 Search Methods assignment (BlocksWorld coursework)
+ * VERSION: v1.0
+ * DATE: Jan 2014
+ * CLASS: AStarStepper (A* run a slice at a time, see SearchStepper)
+ */
+
+/*
+This class is BlocksWorld.heuristic() as a SearchStepper: the same arena, BucketQueue open list (ties broken in
+favour of deeper nodes) and closed set, kept between slices, with the passed Heuristic (admissible for the GoalTest,
+see BlocksWorld.heuristic()).
+There is no fallback to IDA* when the memory budget is passed: the stepper stops with ABORTED.
+ */
+
+public class AStarStepper extends SearchStepper {
+
+    private final Heuristic estimator;
+    private final NodeArena arena;
+    private final BucketQueue queue;
+    private final LongHashSet set;
+
+    AStarStepper(BlocksWorld world, Node start, GoalTest goal, Heuristic estimator){
+        super(world, start, goal, "A*-STEP" + BlocksWorld.label(estimator) + BlocksWorld.label(goal));
+        this.estimator = estimator;
+        arena = new NodeArena(world.expectedStates(start));
+        queue = new BucketQueue(BucketQueue.TieBreak.HIGH_DEPTH, world.expectedStates(start), arena);
+        set = new LongHashSet(world.expectedStates(start));
+        long root = start.getState().getPacked();
+        queue.offer(arena.addRoot(root, BlocksWorld.estimate(root, estimator, metrics)));
+    }
+
+    protected Status advance(){
+        if(queue.isEmpty()) return Status.NO_SOLUTION;
+        int current = queue.poll();
+        long state = arena.getState(current);
+        if(BlocksWorld.isGoal(state, goal, metrics)) return solved(arena.toNode(current, start));
+
+        set.add(state);
+        int depth = arena.getDepth(current) + 1;
+        int count = BlocksWorld.expand(state, gridDimension, successors, metrics);
+        for(int i = 0; i < count; i++){
+            long next = successors.getState(i);
+            if(!set.contains(next) && queue.accepts(next, depth)){
+                queue.offer(arena.add(next, current, successors.getMove(i), BlocksWorld.estimate(next, estimator, metrics)));
+            }
+            else metrics.duplicate();
+        }
+        metrics.open(queue.size());
+        return Status.RUNNING;
+    }
+
+    protected int storedStates(){
+        return set.size() + queue.size();
+    }
+
+    protected int frontierSize(){
+        return queue.size();
+    }
+
+    protected long bytes(){
+        return set.bytes() + queue.bytes() + arena.bytes();
+    }
+
+    protected int visited(){
+        return set.size();
+    }
+
+    protected long probes(){
+        return set.getProbes();
+    }
+}
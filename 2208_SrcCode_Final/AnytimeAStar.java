@@ -0,0 +1,164 @@
+import java.util.PriorityQueue;
+
+/**
+ * AUTHOR: Roberto J Gregoratti - rjg1g12@ecs.soton.ac.uk , University of Southampton ECS
+ * PROJECT: COMP2208 Search Methods assignment (BlocksWorld coursework)
+ * VERSION: v1.0
+ * DATE: Jan 2014
+ * CLASS: AnytimeAStar (anytime weighted A* engine with a deadline, used by BlocksWorld.anytimeHeuristic())
+ */
+
+/*
+This class performs an anytime search made of weighted A* runs (open list ordered on depth + weight * estimate,
+Pohl), the weight being lowered from one run to the next (restarting weighted A*): a high weight goes greedily
+towards the goal and finds a first solution quickly, the following runs improve it until the weight is 1 (plain A*,
+whose solution is optimal) or the deadline passes. Every run after the first prunes the nodes whose depth plus
+estimate is not below the incumbent solution, as they cannot lead to a shorter one, and states reached again by a
+shorter path are reopened; a run that empties its open list therefore proves the incumbent optimal.
+The open list is a PriorityQueue of arena indices with a comparator on the weighted f-value (ties to the deeper
+node); a state reached by a shorter path is pushed again, the old entry is skipped when polled.
+Every improvement is passed to the AnytimeListener with an error bound: the incumbent depth over the smallest
+depth plus estimate left in the open list (a lower bound on the optimal depth, the estimate being admissible),
+never more than the weight of the run.
+ */
+
+public class AnytimeAStar {
+
+    public static final double[] DEFAULT_WEIGHTS = {5, 3, 2, 1.5, 1.25, 1};     //weights of the runs, in order
+    private static final int CHECK_INTERVAL = 256;      //expansions between two looks at the clock
+
+    private final int gridDimension;
+    private final long goal;
+    private final Heuristic estimator;
+    private final double[] weights;
+
+    private Move[] solution;                //best solution so far, null if none
+    private double errorBound = Double.POSITIVE_INFINITY;
+    private int runs;
+
+    public AnytimeAStar(State finish, Heuristic estimator, double[] weights){
+        if(weights.length == 0 || weights[weights.length - 1] < 1){
+            throw new IllegalArgumentException("Error: the weights of an anytime A* must not go below 1");
+        }
+        this.gridDimension = finish.gridDimension;
+        this.goal = finish.getPacked();
+        this.estimator = estimator;
+        this.weights = weights;
+    }
+
+    /*
+    Method to run the search from the passed configuration until the deadline (in System.currentTimeMillis() time).
+    Returns the number of moves of the best solution found (read with getSolution()), or -1 if none was found in
+    time or the goal cannot be reached. The limits are checked during every run; a limit passed once a solution has
+    been found ends the search with that solution instead of aborting it. The listener may be null.
+     */
+    public int solve(Node start, long deadline, SearchLimits limits, long startTime, SearchMetrics metrics,
+                     AnytimeListener listener) throws SearchAbortedException{
+        long root = start.getState().getPacked();
+        for(int i = 0; i < weights.length && errorBound > 1; i++){
+            if(System.currentTimeMillis() >= deadline) break;
+            runs++;
+            try{
+                if(!run(start, root, weights[i], deadline, limits, startTime, metrics, listener)) break;
+            }
+            catch(SearchAbortedException e){
+                if(solution == null) throw e;
+                break;
+            }
+        }
+        return solution == null ? -1 : solution.length;
+    }
+
+    /*
+    One weighted A* run, until its first solution (shorter than the incumbent, if any) or until the open list is
+    empty. Returns false if the deadline has passed before either.
+     */
+    private boolean run(Node start, long root, final double weight, long deadline, SearchLimits limits, long startTime,
+                        SearchMetrics metrics, AnytimeListener listener) throws SearchAbortedException{
+        final NodeArena arena = new NodeArena(1024);
+        PriorityQueue<Integer> open = new PriorityQueue<Integer>(1024, (a, b) -> {
+            int compare = Double.compare(arena.getDepth(a) + weight * arena.getHeuristic(a),
+                    arena.getDepth(b) + weight * arena.getHeuristic(b));
+            return compare != 0 ? compare : arena.getDepth(b) - arena.getDepth(a);
+        });
+        LongIntHashMap best = new LongIntHashMap(1024);         //packed state -> smallest depth reached
+        SuccessorBuffer successors = new SuccessorBuffer();
+        int incumbent = solution == null ? Integer.MAX_VALUE : solution.length;
+
+        open.add(arena.addRoot(root, BlocksWorld.estimate(root, estimator, metrics)));
+        best.put(root, 0);
+        long expansions = 0;
+
+        while(!open.isEmpty()){
+            int current = open.poll();
+            long state = arena.getState(current);
+            int depth = arena.getDepth(current);
+            if(depth > best.get(state, Integer.MAX_VALUE) || arena.getF(current) >= incumbent){
+                continue;                       //stale entry, or cannot improve on the incumbent
+            }
+
+            if(BlocksWorld.isGoal(state, goal, metrics)){
+                incumbent = depth;
+                solution = arena.getPath(current);
+                errorBound = depth == 0 ? 1 : Math.min(weight, depth / (double) Math.max(lowerBound(open, arena, best, depth), 1));
+                if(listener != null){
+                    listener.solutionImproved(Node.replay(start, solution), depth, weight, errorBound,
+                            System.currentTimeMillis() - startTime);
+                }
+                return true;                    //the next run, with a lower weight, improves on it
+            }
+
+            if(++expansions % CHECK_INTERVAL == 0){
+                if(System.currentTimeMillis() >= deadline) return false;
+                limits.check(best.size(), best.bytes() + arena.bytes() + open.size() * 32L, startTime);
+            }
+            int count = BlocksWorld.expand(state, gridDimension, successors, metrics);
+            for(int i = 0; i < count; i++){
+                long next = successors.getState(i);
+                if(best.get(next, Integer.MAX_VALUE) <= depth + 1){
+                    metrics.duplicate();
+                    continue;
+                }
+                int h = BlocksWorld.estimate(next, estimator, metrics);
+                if(depth + 1 + h >= incumbent) continue;
+                best.put(next, depth + 1);
+                open.add(arena.add(next, current, successors.getMove(i), h));
+            }
+            metrics.open(open.size());
+            metrics.closed(best.size());
+            metrics.setEstimatedBytes(best.bytes() + arena.bytes() + open.size() * 32L);
+        }
+
+        if(solution != null) errorBound = 1;        //nothing left below the incumbent: it is optimal
+        return true;
+    }
+
+    /*
+    Smallest depth plus estimate of the live nodes left in the open list, or the incumbent depth if smaller: no
+    solution can be shorter than this
+     */
+    private static int lowerBound(PriorityQueue<Integer> open, NodeArena arena, LongIntHashMap best, int incumbent){
+        int bound = incumbent;
+        for(int node : open){
+            if(arena.getDepth(node) == best.get(arena.getState(node), Integer.MAX_VALUE)){
+                bound = Math.min(bound, arena.getF(node));
+            }
+        }
+        return bound;
+    }
+
+    /*
+    Method returning the best solution found by solve() as a chain of Nodes from the passed start node
+     */
+    public Node getSolution(Node start){
+        return Node.replay(start, solution);
+    }
+
+    public double getErrorBound(){          //of the solution returned, 1 if it is known to be optimal
+        return errorBound;
+    }
+
+    public int getRuns(){
+        return runs;
+    }
+}
@@ -0,0 +1,18 @@
+/**
+ * AUTHOR: Roberto J Gregoratti - rjg1g12@ecs.soton.ac.uk , University of Southampton ECS
+ * PROJECT: COMP2208 Search Methods assignment (BlocksWorld coursework)
+ * VERSION: v1.0
+ * DATE: Jan 2014
+ * CLASS: AnytimeListener (receives the solutions of an anytime A* as they improve)
+ */
+
+/*
+Interface to be notified of every solution found by BlocksWorld.anytimeHeuristic() that is shorter than the ones
+before it. The error bound is how far from optimal the solution can be, as a factor: its depth is at most errorBound
+times the optimal depth (1 once the solution is known to be optimal). It is called on the thread running the search.
+ */
+
+public interface AnytimeListener {
+
+    void solutionImproved(Node solution, int depth, double weight, double errorBound, long timeMs);
+}
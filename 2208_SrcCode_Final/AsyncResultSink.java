@@ -0,0 +1,144 @@
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * AUTHOR: Roberto J Gregoratti - rjg1g12@ecs.soton.ac.uk , University of Southampton ECS
+ * PROJECT: COMP2208 Search Methods assignment (BlocksWorld coursework)
+ * VERSION: v1.0
+ * DATE: Jan 2014
+ * CLASS: AsyncResultSink (results handed to another sink by a background thread, off the searches' threads)
+ */
+
+/*
+This class passes the result records to another sink (eg a CsvResultSink or a BinaryResultSink) from a background
+writer thread, so a search only pays for putting its record in a queue, never for the I/O. The queue is a bounded
+lock-free ring (after Vyukov's bounded queue): a producer takes a ticket from an atomic counter, waits for its slot
+to be free (only when the ring is full) and publishes the record by setting the slot's sequence number; the writer
+takes the published records in order. The writer drains whatever is queued, writes it and flushes the target once
+per batch, then sleeps briefly when the ring is empty. close() sets a closed bit in the ticket counter in the same
+atomic update that reads it, so no ticket can be taken after it: the writer then drains exactly up to that last
+ticket, writes what is left and closes the target.
+ */
+
+public class AsyncResultSink implements ResultSink {
+
+    public static final int DEFAULT_CAPACITY = 1024;
+    private static final long IDLE_NANOS = 1000000;     //pause of the writer when the ring is empty
+    private static final long CLOSED = Long.MIN_VALUE;  //bit of tail set by close()
+
+    private final ResultSink target;
+    private final SearchMetrics[] records;
+    private final AtomicLongArray sequences;    //per slot: ticket of the producer it waits for, or ticket + 1 once published
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();       //next ticket for the producers, with the CLOSED bit
+    private long head;                          //next ticket for the writer (writer thread only)
+    private volatile long written;              //tickets written and flushed by the writer
+    private final AtomicLong stalls = new AtomicLong();     //producers that found the ring full
+    private final Thread writer;
+    private volatile long end = -1;             //tickets taken before close(), -1 while open
+    private volatile IOException failure;       //first error of the writer, thrown by the next call
+
+    public AsyncResultSink(ResultSink target){
+        this(target, DEFAULT_CAPACITY);
+    }
+
+    public AsyncResultSink(ResultSink target, int capacity){
+        if(capacity < 2){
+            throw new IllegalArgumentException("Error: the ring must hold at least two records");
+        }
+        capacity = Integer.highestOneBit(capacity - 1) << 1;       //power of two
+        this.target = target;
+        this.records = new SearchMetrics[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        for(int i = 0; i < capacity; i++) sequences.set(i, i);
+        this.mask = capacity - 1;
+
+        writer = new Thread(this::drainLoop, "result-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /*
+    Method to queue a record, only waiting if the ring is full (the writer being behind)
+     */
+    public void write(SearchMetrics metrics) throws IOException{
+        if(failure != null) throw failure;
+
+        long ticket;
+        do{
+            ticket = tail.get();
+            if((ticket & CLOSED) != 0) throw new IOException("Error: the results sink is closed");
+        }
+        while(!tail.compareAndSet(ticket, ticket + 1));
+        int slot = (int) ticket & mask;
+        if(sequences.get(slot) != ticket){
+            stalls.incrementAndGet();
+            while(sequences.get(slot) != ticket) Thread.yield();
+        }
+        records[slot] = metrics;
+        sequences.set(slot, ticket + 1);            //publishes the record to the writer
+    }
+
+    /*
+    Method returning once the records queued before the call have been written and flushed by the target
+     */
+    public void flush() throws IOException{
+        long ticket = tail.get() & ~CLOSED;
+        while(written < ticket && writer.isAlive()) LockSupport.parkNanos(IDLE_NANOS / 10);
+        if(failure != null) throw failure;
+    }
+
+    public void close() throws IOException{
+        long last = tail.getAndUpdate(ticket -> ticket | CLOSED);
+        if((last & CLOSED) == 0) end = last;
+        LockSupport.unpark(writer);
+        try{
+            writer.join();
+        }
+        catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+        target.close();
+        if(failure != null) throw failure;
+    }
+
+    public long getStalls(){                //times a search had to wait for the writer
+        return stalls.get();
+    }
+
+    /*
+    Writer thread: drains the ring in batches until closed and every ticket taken before has been written. Producers
+    may still be publishing tickets below end (or waiting for a slot) when close() is called, so the writer keeps
+    draining until it reaches end rather than stopping at an empty ring.
+     */
+    private void drainLoop(){
+        while(true){
+            long last = end;
+            int batch = 0;
+            try{
+                while(true){
+                    int slot = (int) head & mask;
+                    if(sequences.get(slot) != head + 1) break;         //not published yet
+                    SearchMetrics metrics = records[slot];
+                    records[slot] = null;
+                    sequences.set(slot, head + records.length);       //free for the producer one lap later
+                    head++;
+                    batch++;
+                    if(failure == null) target.write(metrics);
+                }
+                if(batch > 0 && failure == null) target.flush();
+            }
+            catch(IOException e){
+                failure = e;
+            }
+            catch(RuntimeException e){          //the writer has to keep draining, or the producers would wait forever
+                failure = new IOException("Error: results sink failed, " + e, e);
+            }
+            written = head;
+            if(last >= 0 && head == last) return;
+            if(batch == 0) LockSupport.parkNanos(IDLE_NANOS);
+        }
+    }
+}
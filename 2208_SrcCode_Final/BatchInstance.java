@@ -0,0 +1,46 @@
+/**
+ * AUTHOR: Roberto J Gregoratti - rjg1g12@ecs.soton.ac.uk , University of Southampton ECS
+ * PROJECT: COMP2208 Search Methods assignment (BlocksWorld coursework)
+ * VERSION: v1.0
+ * DATE: Jan 2014
+ * CLASS: BatchInstance (one problem to be solved by the BatchSolver)
+ */
+
+/*
+This class represents one instance of a batch: start and finish states (which carry the grid size), the search to
+use and an identifier chosen by the caller to match results with instances.
+ */
+
+public class BatchInstance {
+
+    private final long id;
+    private final State start;
+    private final State finish;
+    private final SearchStrategy strategy;
+
+    public BatchInstance(long id, State start, State finish, SearchStrategy strategy){
+        if(start.gridDimension != finish.gridDimension){
+            throw new IllegalArgumentException("Error: start and finish states have to be on the same grid size");
+        }
+        this.id = id;
+        this.start = start;
+        this.finish = finish;
+        this.strategy = strategy;
+    }
+
+    public long getId(){
+        return id;
+    }
+
+    public State getStart(){
+        return start;
+    }
+
+    public State getFinish(){
+        return finish;
+    }
+
+    public SearchStrategy getStrategy(){
+        return strategy;
+    }
+}
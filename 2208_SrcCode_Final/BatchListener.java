@@ -0,0 +1,17 @@
+/**
+ * AUTHOR: Roberto J Gregoratti - rjg1g12@ecs.soton.ac.uk , University of Southampton ECS
+ * PROJECT: COMP2208 Search Methods assignment (BlocksWorld coursework)
+ * VERSION: v1.0
+ * DATE: Jan 2014
+ * CLASS: BatchListener (receives the results of a BatchSolver as they complete)
+ */
+
+/*
+Interface implemented by callers of the BatchSolver to receive results. It is called from the worker threads, as
+soon as each instance completes (in completion order), so implementations have to be thread-safe.
+ */
+
+public interface BatchListener {
+
+    void completed(BatchResult result);
+}
@@ -0,0 +1,60 @@
+/**
+ * AUTHOR: Roberto J Gregoratti - rjg1g12@ecs.soton.ac.uk , University of Southampton ECS
+ * PROJECT: COMP2208 Search Methods assignment (BlocksWorld coursework)
+ * VERSION: v1.0
+ * DATE: Jan 2014
+ * CLASS: BatchResult (outcome of one BatchInstance)
+ */
+
+/*
+This class represents the outcome of a BatchInstance: its status, the solution path (as from displaySolution(),
+null unless solved), the time taken and, for failures, the reason.
+ */
+
+public class BatchResult {
+
+    public enum Status {
+        SOLVED,
+        NO_SOLUTION,
+        ABORTED,            //stopped by the per-task SearchLimits
+        FAILED              //the search threw an error
+    }
+
+    private final BatchInstance instance;
+    private final Status status;
+    private final String[] path;
+    private final long time;            //ms
+    private final String message;
+
+    public BatchResult(BatchInstance instance, Status status, String[] path, long time, String message){
+        this.instance = instance;
+        this.status = status;
+        this.path = path;
+        this.time = time;
+        this.message = message;
+    }
+
+    public BatchInstance getInstance(){
+        return instance;
+    }
+
+    public Status getStatus(){
+        return status;
+    }
+
+    public String[] getPath(){
+        return path;
+    }
+
+    public int getDepth(){              //number of moves of the solution, -1 if not solved
+        return path == null ? -1 : path.length;
+    }
+
+    public long getTime(){
+        return time;
+    }
+
+    public String getMessage(){
+        return message;
+    }
+}
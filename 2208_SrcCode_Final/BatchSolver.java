@@ -0,0 +1,94 @@
+import java.util.Iterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * AUTHOR: Roberto J Gregoratti - rjg1g12@ecs.soton.ac.uk , University of Southampton ECS
+ * PROJECT: COMP2208 Search Methods assignment (BlocksWorld coursework)
+ * VERSION: v1.0
+ * DATE: Jan 2014
+ * CLASS: BatchSolver (solves many independent instances concurrently)
+ */
+
+/*
+This class solves a stream of independent BatchInstances on a fixed pool of worker threads. Every instance gets its
+own BlocksWorld with the per-task SearchLimits (stored states and time), results are passed to a BatchListener as
+they complete. Instances are taken from the stream only when a worker is about to be free, so streams of thousands
+of instances are never materialised in memory. The results sink is optional (null for none); an AsyncResultSink
+keeps the workers from waiting on its I/O. The rows have a peak_heap of 0, see BlocksWorld.setHeapMeasured().
+ */
+
+public class BatchSolver {
+
+    private final int threads;
+    private final SearchLimits limits;
+    private final ResultSink sink;
+    private SolutionCache cache;
+
+    public BatchSolver(int threads, SearchLimits limits, ResultSink sink){
+        if(threads < 1) throw new IllegalArgumentException("Error: at least one worker thread is needed");
+        this.threads = threads;
+        this.limits = limits;
+        this.sink = sink;
+    }
+
+    public void setCache(SolutionCache cache){     //shared by all the workers, repeated instances are not searched again
+        this.cache = cache;
+    }
+
+    /*
+    Method to solve all the instances of the stream, returns when all of them have completed
+     */
+    public void solve(Stream<BatchInstance> instances, final BatchListener listener) throws InterruptedException{
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        final Semaphore slots = new Semaphore(threads * 2);         //instances submitted but not completed
+
+        try{
+            Iterator<BatchInstance> iterator = instances.iterator();
+            while(iterator.hasNext()){
+                final BatchInstance instance = iterator.next();
+                slots.acquire();
+                pool.execute(() -> {
+                    try{
+                        listener.completed(solve(instance));
+                    }
+                    finally{
+                        slots.release();
+                    }
+                });
+            }
+        }
+        finally{
+            pool.shutdown();
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /*
+    Method to solve a single instance on the calling thread
+     */
+    public BatchResult solve(BatchInstance instance){
+        long start_time = System.currentTimeMillis();
+        try{
+            BlocksWorld world = new BlocksWorld(instance.getStart(), instance.getFinish(), null);
+            world.setResultSink(sink);
+            world.setLimits(limits);
+            world.setCache(cache);
+            world.setHeapMeasured(false);           //other instances are searched at the same time
+            Node solution = world.solve(instance.getStrategy());
+            long time = System.currentTimeMillis() - start_time;
+
+            if(solution == null) return new BatchResult(instance, BatchResult.Status.NO_SOLUTION, null, time, null);
+            return new BatchResult(instance, BatchResult.Status.SOLVED, solution.displaySolution(), time, null);
+        }
+        catch(SearchAbortedException e){
+            return new BatchResult(instance, BatchResult.Status.ABORTED, null, System.currentTimeMillis() - start_time, e.getMessage());
+        }
+        catch(Exception e){
+            return new BatchResult(instance, BatchResult.Status.FAILED, null, System.currentTimeMillis() - start_time, e.toString());
+        }
+    }
+}
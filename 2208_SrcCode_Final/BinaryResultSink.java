@@ -0,0 +1,202 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * AUTHOR: Roberto J Gregoratti - rjg1g12@ecs.soton.ac.uk , University of Southampton ECS
+ * PROJECT: COMP2208 Search Methods assignment (BlocksWorld coursework)
+ * VERSION: v1.0
+ * DATE: Jan 2014
+ * CLASS: BinaryResultSink (results written as fixed-size binary records, to be memory-mapped for analysis)
+ */
+
+/*
+This class writes every result record as a fixed-size binary record (RECORD_BYTES, the search name in ASCII then the
+figures of SearchMetrics at fixed offsets), after a small header. Record i is at HEADER_BYTES + i * RECORD_BYTES, so a
+file of any size is read by memory-mapping it and reading the fields in place (see Reader), without parsing, and a
+single column is read by striding over the records. Records are collected in a buffer written to the file when full,
+on flush() and on close(); the header is rewritten with the number of records then.
+Running the class converts a file back to CSV: java BinaryResultSink results.bin
+ */
+
+public class BinaryResultSink implements ResultSink {
+
+    static final int MAGIC = 0x42575253;        //"BWRS", at the start of every results file
+    static final int HEADER_BYTES = 16;         //magic, record size, number of records
+    static final int NAME_BYTES = 24;           //search name, ASCII padded with zeros
+
+    static final int GRID = 24;                 //offsets of the fields in a record
+    static final int DEPTH = 28;
+    static final int VISITED = 32;
+    static final int THREADS = 36;
+    static final int TIME = 40;
+    static final int PEAK_HEAP = 48;
+    static final int PROBES = 56;
+    static final int EXPANDED = 64;
+    static final int GENERATED = 72;
+    static final int DUPLICATES = 80;
+    static final int PEAK_OPEN = 88;
+    static final int PEAK_CLOSED = 92;
+    static final int ESTIMATED_BYTES = 96;
+    static final int NANOS = 104;               //3 longs, by SearchMetrics section
+    static final int SPEEDUP = 128;
+    public static final int RECORD_BYTES = 136;
+
+    private final RandomAccessFile raf;
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(RECORD_BYTES * 256);
+    private long records;
+
+    public BinaryResultSink(File file) throws IOException{
+        raf = new RandomAccessFile(file, "rw");
+        raf.setLength(0);
+        channel = raf.getChannel();
+        writeHeader();
+    }
+
+    public synchronized void write(SearchMetrics metrics) throws IOException{
+        if(buffer.remaining() < RECORD_BYTES) writeBuffer();
+        int record = buffer.position();
+        byte[] name = metrics.getSearch().getBytes(StandardCharsets.US_ASCII);
+        buffer.put(name, 0, Math.min(name.length, NAME_BYTES));
+        while(buffer.position() < record + GRID) buffer.put((byte) 0);
+        buffer.putInt(metrics.getGridDimension()).putInt(metrics.getDepth()).putInt(metrics.getVisited())
+                .putInt(metrics.getThreads()).putDouble(metrics.getTime()).putLong(metrics.getPeakHeap())
+                .putLong(metrics.getProbes()).putLong(metrics.getExpanded()).putLong(metrics.getGenerated())
+                .putLong(metrics.getDuplicates()).putInt(metrics.getPeakOpen()).putInt(metrics.getPeakClosed())
+                .putLong(metrics.getEstimatedBytes()).putLong(metrics.getNanos(SearchMetrics.SUCCESSORS))
+                .putLong(metrics.getNanos(SearchMetrics.HEURISTIC)).putLong(metrics.getNanos(SearchMetrics.GOAL_TEST))
+                .putDouble(metrics.getSpeedup());
+        records++;
+    }
+
+    public synchronized void flush() throws IOException{
+        writeBuffer();
+        writeHeader();
+    }
+
+    public synchronized void close() throws IOException{
+        try{
+            flush();
+        }
+        finally{
+            raf.close();
+        }
+    }
+
+    private void writeBuffer() throws IOException{
+        buffer.flip();
+        long position = HEADER_BYTES + (records - buffer.remaining() / RECORD_BYTES) * RECORD_BYTES;
+        while(buffer.hasRemaining()) position += channel.write(buffer, position);
+        buffer.clear();
+    }
+
+    private void writeHeader() throws IOException{
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(MAGIC).putInt(RECORD_BYTES).putLong(records);
+        header.flip();
+        channel.write(header, 0);
+    }
+
+    /*
+    Method to memory-map a file written by a BinaryResultSink (closed or flushed). The mapping stays valid after the
+    file is closed.
+     */
+    public static Reader map(File file) throws IOException{
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try{
+            ByteBuffer data = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+            if(data.getInt(0) != MAGIC || data.getInt(4) != RECORD_BYTES){
+                throw new IOException("Error: " + file + " is not a results file of this version");
+            }
+            long records = Math.min(data.getLong(8), (raf.length() - HEADER_BYTES) / RECORD_BYTES);
+            return new Reader(data, (int) records);
+        }
+        finally{
+            raf.close();
+        }
+    }
+
+    /*
+    Read access to the records of a mapped results file, by record index
+     */
+    public static class Reader {
+        private final ByteBuffer data;
+        private final int size;
+
+        Reader(ByteBuffer data, int size){
+            this.data = data;
+            this.size = size;
+        }
+
+        public int size(){
+            return size;
+        }
+
+        public String getSearch(int i){
+            int start = offset(i), length = 0;
+            while(length < NAME_BYTES && data.get(start + length) != 0) length++;
+            byte[] name = new byte[length];
+            for(int j = 0; j < length; j++) name[j] = data.get(start + j);
+            return new String(name, StandardCharsets.US_ASCII);
+        }
+
+        public int getGridDimension(int i){
+            return data.getInt(offset(i) + GRID);
+        }
+
+        public int getDepth(int i){
+            return data.getInt(offset(i) + DEPTH);
+        }
+
+        public int getVisited(int i){
+            return data.getInt(offset(i) + VISITED);
+        }
+
+        public double getTime(int i){
+            return data.getDouble(offset(i) + TIME);
+        }
+
+        public long getExpanded(int i){
+            return data.getLong(offset(i) + EXPANDED);
+        }
+
+        public long getEstimatedBytes(int i){
+            return data.getLong(offset(i) + ESTIMATED_BYTES);
+        }
+
+        /*
+        Method returning record i as a row of SearchMetrics.CSV_HEADER, as SearchMetrics.toCsv() printed it
+         */
+        public String toCsv(int i){
+            int record = offset(i);
+            double time = data.getDouble(record + TIME);
+            return getSearch(i) + "," + data.getInt(record + GRID) + "," + data.getInt(record + DEPTH) + ","
+                    + data.getInt(record + VISITED) + "," + time + "," + data.getLong(record + PEAK_HEAP) + ","
+                    + BlocksWorld.probesPerSecond(data.getLong(record + PROBES), time) + "," + data.getLong(record + EXPANDED)
+                    + "," + data.getLong(record + GENERATED) + "," + data.getLong(record + DUPLICATES) + ","
+                    + data.getInt(record + PEAK_OPEN) + "," + data.getInt(record + PEAK_CLOSED) + ","
+                    + data.getLong(record + ESTIMATED_BYTES) + "," + data.getLong(record + NANOS) + ","
+                    + data.getLong(record + NANOS + 8) + "," + data.getLong(record + NANOS + 16) + ","
+                    + data.getInt(record + THREADS) + "," + data.getDouble(record + SPEEDUP);
+        }
+
+        private int offset(int i){
+            if(i < 0 || i >= size) throw new IndexOutOfBoundsException("Error: no record " + i);
+            return HEADER_BYTES + i * RECORD_BYTES;
+        }
+    }
+
+    public static void main(String[] args) throws Exception{
+        if(args.length < 1){
+            System.out.println("Usage: java BinaryResultSink results.bin");
+            return;
+        }
+        Reader reader = map(new File(args[0]));
+        System.out.println(SearchMetrics.CSV_HEADER);
+        for(int i = 0; i < reader.size(); i++) System.out.println(reader.toCsv(i));
+    }
+}
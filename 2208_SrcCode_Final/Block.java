@@ -8,7 +8,8 @@
 
 /*
 This class represents a block in a world (grid) problem. Each block has an identifier (string for the name),
-and x and y coordinates representing its position in the grid (a Block[][] , see State and Node classes).
+and x and y coordinates representing its position in the grid. States no longer keep Blocks (see State, which
+packs the positions into a long), Blocks are created on demand by State.getBlock() for display purposes.
 The methods contained in here are standard getters and setters, plus a method to return the position as
 a string containing the coordinates
  */
@@ -1,5 +1,14 @@
+import java.io.File;
+import java.io.IOException;
 import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * AUTHOR: Roberto J Gregoratti - rjg1g12@ecs.soton.ac.uk , University of Southampton ECS
@@ -13,18 +22,33 @@ import java.util.*;
 This class represents an instance of the assignment's problem, the blocksworld. It has a specific set-up
 of tiles (provided by the main method through various tile-placing strategies), start and finish nodes,
 a PrintStream it receives by the main class when created to print the results to a CSv file for analysis
-purposes, and methods to perform the different kinds of heuristic and uninformed searches.
+purposes (or any ResultSink set instead), and methods to perform the different kinds of heuristic and uninformed searches.
+Visited (closed) lists hold packed states in primitive open-addressing tables (LongHashSet/LongIntHashMap) rather
+than Nodes, so a visited state costs a few bytes instead of a Node/State pair; BFS and DFS use a bitmap over all the
+states of the grid instead when it fits (see closedSet()), one bit per state and off the heap. Every search fills in a SearchMetrics
+object, which is printed as a CSV row and passed to the SearchListeners added to the world.
 The uninformed searches implemented are: BFS, DFS, ID(DF)S.
 The heuristic search I chose to implement is: A*.
  */
 
 public class BlocksWorld{
 
-    PrintStream out;        //obtained from main class, to print data to a file for analysis
+    ResultSink sink;        //where the results go, from the stream obtained from main class or set (null: no output)
 
     Node finish;                    //end node
     Node current;                   //start state
-    int totalIDSMoves;          //variable recording the total number of moves performed by IDS during all iterations
+    SearchLimits limits = SearchLimits.NONE;       //limits every search of this world has to respect
+    File spillDirectory = new File(System.getProperty("java.io.tmpdir"));      //where disk-backed searches write
+    File tableDirectory = RetrogradeTable.DEFAULT_DIRECTORY;       //where the retrograde tables are looked for
+    SolutionCache cache;                            //solutions of solve(), none by default
+    List<SearchListener> listeners = new CopyOnWriteArrayList<SearchListener>();
+
+    static final int MAX_PRESIZE = 1 << 16;     //upper bound on the pre-sizing of the visited tables
+    static final int IDA_TABLE_ENTRIES = 1 << 18;       //default bound on the IDA* transposition table
+    static final long MAX_BITMAP_BYTES = 1L << 30;      //largest bitmap closed set (16x16 grids need 524MB)
+    static final ThreadLocal<RankBitmapSet> BITMAPS = new ThreadLocal<RankBitmapSet>();   //kept by each searching thread
+    boolean bitmapSets = true;                          //BFS/DFS closed sets as bitmaps when small enough
+    boolean heapMeasured = true;                        //peak_heap column read from the JVM's heap pools
 
     /*
     The constructor takes int parameters to specify the position of the tiles on the grid for both the start and goal states,
@@ -35,176 +59,845 @@ public class BlocksWorld{
                        int finYB, int finXC, int finYC, int finXAg, int finYAg, int worldSize, PrintStream out) throws Exception {
         finish = new Node(new State(finXA,finYA,finXB,finYB,finXC,finYC,finXAg,finYAg, worldSize));
         current = new Node(new State(xa,ya,xb,yb,xc,yc,xAg,yAg, worldSize));
-        this.out = out;
+        this.sink = out == null ? null : new CsvResultSink(out);
+    }
+
+    public BlocksWorld(State start, State goal, PrintStream out){      //world from already built states
+        finish = new Node(goal);
+        current = new Node(start);
+        this.sink = out == null ? null : new CsvResultSink(out);
+    }
+
+    /*
+    Method to set the limits (stored states, time) of the searches, to be called before searching. The searches
+    keep all their data in local variables, so one world can run several searches at the same time.
+     */
+    public void setLimits(SearchLimits limits){
+        this.limits = limits;
+    }
+
+    public void setSpillDirectory(File directory){
+        this.spillDirectory = directory;
+    }
+
+    public void setTableDirectory(File directory){
+        this.tableDirectory = directory;
+    }
+
+    public void addSearchListener(SearchListener listener){      //notified with the metrics of every search
+        listeners.add(listener);
+    }
+
+    public void setResultSink(ResultSink sink){     //replaces the stream given to the constructor (may be shared by worlds)
+        this.sink = sink;
+    }
+
+    public void setBitmapSets(boolean bitmapSets){     //false: BFS and DFS always use hashed closed sets
+        this.bitmapSets = bitmapSets;
+    }
+
+    public void setCache(SolutionCache cache){     //cache consulted by solve(), null for none (may be shared by worlds)
+        this.cache = cache;
+    }
+
+    /*
+    Method to choose whether the searches reset and read the JVM's heap pools for the peak_heap column. The pools are
+    shared by the whole JVM, so the figure only means something when one search runs at a time: worlds searching
+    concurrently with others (BatchSolver, SolverServer) set it to false, and their rows have a peak_heap of 0.
+     */
+    public void setHeapMeasured(boolean heapMeasured){
+        this.heapMeasured = heapMeasured;
+    }
+
+    /*
+    Method to run the given search from this world's start node to its finish node. With a cache set, a problem
+    already solved with the same strategy (or a mirror image/rotation of it) is answered from the cache, without
+    searching and without printing a row.
+     */
+    public Node solve(SearchStrategy strategy) throws Exception{
+        if(cache == null) return search(strategy);
+
+        Move[] moves = cache.get(current.getState(), finish.getState(), strategy);
+        if(moves != null) return Node.replay(current, moves);
+
+        Node solution = search(strategy);
+        if(solution != null) cache.put(current.getState(), finish.getState(), strategy, solution);
+        return solution;
+    }
+
+    private Node search(SearchStrategy strategy) throws Exception{
+        switch(strategy){
+            case BFS: return breadthFirst(current, finish);
+            case EXTERNAL_BFS: return externalBreadthFirst(current, finish);
+            case DFS: return depthFirst(current, finish);
+            case IDS: return iterativeDeepening(current, finish);
+            case ASTAR: return heuristic(current, finish);
+            case IDASTAR: return idaStar(current, finish);
+            case BIDIRECTIONAL: return bidirectionalSearch(current, finish);
+            case TABLE:
+                Node answer = tableSolve(current, finish);
+                return answer != null ? answer : heuristic(current, finish);      //no table built for this grid
+        }
+        throw new IllegalArgumentException("Error: unknown search strategy " + strategy);
+    }
+
+    /*
+    Methods returning the given search from this world's start node to its finish node (or to the states passing the
+    GoalTest) as a SearchStepper, to be run a slice at a time (eg by a scheduler interleaving many searches). BFS, DFS,
+    IDS and A* can be stepped; A* uses the default estimate of the goal, see heuristic().
+     */
+    public SearchStepper stepper(SearchStrategy strategy){
+        return stepper(strategy, new ExactGoal(finish.getState()));
+    }
+
+    public SearchStepper stepper(SearchStrategy strategy, GoalTest goal){
+        switch(strategy){
+            case BFS: return new BreadthFirstStepper(this, current, goal);
+            case DFS: return new DepthFirstStepper(this, current, goal);
+            case IDS: return new IterativeDeepeningStepper(this, current, goal);
+            case ASTAR: return new AStarStepper(this, current, goal, defaultEstimate(finish, goal));
+        }
+        throw new IllegalArgumentException("Error: " + strategy + " search cannot be run step by step");
     }
 
     /*
-    Method to perform breadth-first search (BFS), adapted from pseudocodes found on Wikipedia, lecture slides and
-    AIAMA2e (Russell-Norvig)
+    Methods to perform breadth-first search (BFS), adapted from pseudocodes found on Wikipedia, lecture slides and
+    AIAMA2e (Russell-Norvig), until the finish node or a state passing the given GoalTest is found. States are tested
+    when generated rather than when dequeued: all the states of a layer are generated before any of the next, so the
+    first goal generated is still a shallowest one, and the layer after it is never built. When the queue and visited
+    set grow past the memory budget of the limits, a search for the finish node carries on from scratch on disk with
+    externalBreadthFirst() (the row printed is then the BFS-EXT one); one for another goal fails.
      */
     public Node breadthFirst(Node start, Node finish) throws Exception{
+        return breadthFirst(start, finish, new ExactGoal(finish.getState()));
+    }
+
+    public Node breadthFirst(Node start, Node finish, GoalTest goal) throws Exception{
+        try{
+            return memoryBreadthFirst(start, goal);
+        }
+        catch(SearchAbortedException e){
+            if(e.getReason() != SearchAbortedException.Reason.MEMORY || !(goal instanceof ExactGoal)) throw e;
+            System.out.println("BFS over the memory budget after " + e.getMetrics().getExpanded()
+                    + " expansions, continuing on disk");
+            return externalBreadthFirst(start, finish);
+        }
+    }
+
+    private Node memoryBreadthFirst(Node start, GoalTest goal) throws Exception{
+        StateSet set = closedSet(start);            //packed states visited (to avoid repetitions)
+        try{
+            return memoryBreadthFirst(start, goal, set);
+        }
+        finally{
+            releaseClosedSet(set);
+        }
+    }
+
+    private Node memoryBreadthFirst(Node start, GoalTest goal, StateSet set) throws Exception{
+        resetPeakHeap();
         long start_time = System.currentTimeMillis();           //real-time registered (at the beginning)
-        Queue queue = new LinkedList();          //DS containing nodes to analyse
-        HashSet set = new HashSet();            //DS containing nodes visited (to avoid repetitions)
-        queue.add(start);           //start node added to both queue and set (at start)
-        set.add(start);
-
-        while(!queue.isEmpty()){                //while there are still nodes left to analyse
-            Node node = (Node) queue.poll();        //get first node to analyse from the queue
-
-            //when element in queue matches, terminate search and print results/get total search time
-            if(node.getState().compareTo(finish.getState())){
-                double time_end = (System.currentTimeMillis() - start_time);
-                printResults("BFS",start,node,time_end,set);
-                return node;
-            }
+        int n = start.getState().gridDimension;
+        SearchMetrics metrics = new SearchMetrics("BFS" + label(goal), n);
+        NodeArena arena = new NodeArena(expectedStates(start));       //nodes generated, also the queue (FIFO by index)
+        arena.addRoot(start.getState().getPacked(), 0);           //start node added to both queue and set (at start)
+        set.add(start.getState().getPacked());
+        int head = 0;           //next node of the arena to analyse, the ones after it are the queue
+        int found = isGoal(start.getState().getPacked(), goal, metrics) ? 0 : NodeArena.NONE;      //arena index of the goal
+        SuccessorBuffer successors = new SuccessorBuffer();
 
-            ArrayList<Node> possibleMoves = node.checkMoves();      //get possible moves of the agent from state being analysed
+        while(found == NodeArena.NONE && head < arena.size()){                //while there are still nodes left to analyse
+            checkLimits(metrics, set.size(), set.bytes() + arena.bytes(), start_time);
+            int node = head++;          //get first node to analyse from the queue
+            long state = arena.getState(node);
 
-            //if neighbour not visited yet, add to both queue and set
-            for(Node n : possibleMoves){
-                if (!set.contains(n)){
-                    set.add(n);
-                    queue.add(n);
+            int count = expand(state, n, successors, metrics);      //get possible moves of the agent from state being analysed
+
+            //if neighbour not visited yet, add to both queue and set (add() returns false if already visited), and
+            //terminate the search when it matches
+            for(int i = 0; i < count && found == NodeArena.NONE; i++){
+                if (set.add(successors.getState(i))){
+                    int child = arena.add(successors.getState(i), node, successors.getMove(i), 0);
+                    if(isGoal(successors.getState(i), goal, metrics)) found = child;
                 }
+                else metrics.duplicate();
             }
+            metrics.open(arena.size() - head);
         }
 
-        System.out.println("Error occurred while running BFS! Search failed!");     //nothing found - null returned
-        return null;
+        if(found == NodeArena.NONE){
+            System.out.println("Error occurred while running BFS! Search failed!");     //nothing found - null returned
+            return null;
+        }
+
+        //print results/get total search time
+        Node result = arena.toNode(found, start);
+        metrics.closed(set.size());
+        metrics.setEstimatedBytes(set.bytes() + arena.bytes());
+        metrics.finish(result, set.size(), set.getProbes(), System.currentTimeMillis() - start_time);
+        printResults(metrics);
+        return result;
     }
 
+    /*
+    Method to perform a breadth-first frontier search (see FrontierBFS): only two layers are kept, with no visited set,
+    so the memory is bounded by the width of the frontier rather than the states visited; the path is rebuilt by
+    divide and conquer over relay layers. The visited column is the distinct states generated finding the goal.
+     */
+    public Node frontierBreadthFirst(Node start, Node finish) throws Exception{
+        resetPeakHeap();
+        long start_time = System.currentTimeMillis();
+
+        SearchMetrics metrics = new SearchMetrics("BFS-FRONTIER", start.getState().gridDimension);
+        FrontierBFS search = new FrontierBFS(finish.getState());
+        if(search.solve(start.getState(), limits, start_time, metrics) < 0){
+            System.out.println("Error occurred while running frontier BFS! Search failed!");
+            return null;
+        }
+
+        Node result = search.getSolution(start);
+        metrics.setEstimatedBytes(search.getPeakBytes());
+        metrics.finish(result, (int) Math.min(search.getVisited(), Integer.MAX_VALUE), 0, System.currentTimeMillis() - start_time);
+        printResults(metrics);
+        return result;
+    }
 
     /*
-    Method to perform depth-first search (DFS), adapted from pseudocodes found on Wikipedia, lecture slides and
-    AIAMA2e (Russell-Norvig). Works similarly to BFS one above, minor modifications, uses stack instead of queue DS
+    Method to perform a breadth-first search with its layers on disk (see ExternalBFS), in spillDirectory. The heap
+    used is bounded by the successor buffer, a quarter of the memory budget if there is one, so it can reach depths
+    the in-memory BFS cannot; the visited and probes columns are the states written to disk and 0.
      */
-    public Node depthFirst(Node start, Node finish) throws Exception{
+    public Node externalBreadthFirst(Node start, Node finish) throws Exception{
+        resetPeakHeap();
         long start_time = System.currentTimeMillis();
+        SearchMetrics metrics = new SearchMetrics("BFS-EXT", start.getState().gridDimension);
 
-        Stack stack = new Stack();              //use stack DS to store nodes to visit, not queue (like BFS)
-        HashSet set = new HashSet();
-        stack.push(start);
-        set.add(start);
+        int bufferStates = ExternalBFS.DEFAULT_BUFFER_STATES;
+        if(limits.getMaxBytes() > 0) bufferStates = (int) Math.max(Math.min(bufferStates, limits.getMaxBytes() / 4 / 8), 1024);
 
-        while(!stack.isEmpty()){
-            Node node = (Node) stack.pop();     //pop element to analyse from stack
+        ExternalBFS search = new ExternalBFS(finish.getState(), spillDirectory, bufferStates);
+        if(search.solve(start.getState(), limits, start_time, metrics) < 0){
+            System.out.println("Error occurred while running BFS-EXT! Search failed!");
+            return null;
+        }
+
+        Node result = search.getSolution(start);
+        metrics.finish(result, metrics.getPeakClosed(), 0, System.currentTimeMillis() - start_time);
+        printResults(metrics);
+        return result;
+    }
 
-            //search completed when what's popped from the stack matches goal, search completed.
-            if(node.getState().compareTo(finish.getState())){
-                double time_end = (System.currentTimeMillis() - start_time);
-                printResults("DFS",start,node,time_end,set);
-                return node;
+    /*
+    Method to answer from the retrograde table of this grid and finish state (see RetrogradeTable), when one has been
+    built in tableDirectory: the solution is optimal and is read from the table in O(depth) lookups, without any
+    search. Returns null if there is no table (or if the finish cannot be reached, which is printed).
+     */
+    public Node tableSolve(Node start, Node finish) throws Exception{
+        RetrogradeTable table = RetrogradeTable.find(finish.getState(), tableDirectory);
+        if(table == null) return null;
+
+        resetPeakHeap();
+        long start_time = System.currentTimeMillis();
+        SearchMetrics metrics = new SearchMetrics("TABLE", start.getState().gridDimension);
+        Move[] moves = table.solve(start.getState().getPacked());
+        if(moves == null){
+            System.out.println("The finish state cannot be reached from the start state (retrograde table)");
+            return null;
+        }
+
+        Node result = Node.replay(start, moves);
+        metrics.addCounts(moves.length, (long) moves.length * SuccessorBuffer.CAPACITY, 0);      //states looked up, at most
+        metrics.finish(result, moves.length + 1, 0, System.currentTimeMillis() - start_time);
+        printResults(metrics);
+        return result;
+    }
+
+    /*
+    Method to perform a level-synchronous parallel BFS on the given number of threads. The nodes are kept in a
+    NodeArena, where every layer (all the nodes at the same depth) follows the one before; a layer is split in chunks
+    expanded in parallel by a ForkJoinPool, each worker with its own SuccessorBuffer. Successors are kept only if they
+    can be added to a striped concurrent visited set, and the chunks' new nodes are then appended to the arena by this
+    thread (the only one writing it), checking for the goal. The solution depth is the same as breadthFirst()'s, as
+    layers are complete. The CSV row also reports the threads used and the speedup over a sequential run taking
+    baselineTime ms (0 if unknown).
+     */
+    public Node parallelBreadthFirst(Node start, Node finish, int threads, double baselineTime) throws Exception{
+        resetPeakHeap();
+        long start_time = System.currentTimeMillis();
+
+        final int n = start.getState().gridDimension;
+        long goal = finish.getState().getPacked();
+        SearchMetrics metrics = new SearchMetrics("BFS-P", n);
+        final ConcurrentLongHashSet set = new ConcurrentLongHashSet(expectedStates(start), threads);
+        final NodeArena arena = new NodeArena(expectedStates(start));
+        arena.addRoot(start.getState().getPacked(), 0);
+        set.add(start.getState().getPacked());
+        int found = isGoal(arena.getState(0), goal, metrics) ? 0 : NodeArena.NONE;
+        int from = 0;           //first node of the current layer, which runs to the end of the arena
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try{
+            while(found == NodeArena.NONE && from < arena.size()){
+                checkLimits(metrics, set.size(), (long) set.size() * 16 + arena.bytes(), start_time);
+                final int first = from;
+                final int last = arena.size();
+                final int chunk = Math.max((last - first) / (threads * 4), 256);       //a few chunks per thread
+
+                List<LayerChunk> chunks = pool.submit(() -> IntStream.range(0, (last - first + chunk - 1) / chunk).parallel()
+                        .mapToObj(c -> expandChunk(arena, first + c * chunk, Math.min(first + (c + 1) * chunk, last), n, set))
+                        .collect(Collectors.toList())).get();
+
+                long generated = 0;
+                for(LayerChunk part : chunks){          //next layer, in the order of the chunks
+                    generated += part.generated;
+                    for(int i = 0; i < part.size; i++){
+                        int id = arena.add(part.states[i], part.parents[i], part.moves[i], 0);
+                        if(found == NodeArena.NONE && isGoal(part.states[i], goal, metrics)) found = id;
+                    }
+                }
+
+                metrics.addCounts(last - first, generated, generated - (arena.size() - last));
+                metrics.open(arena.size() - last);
+                from = last;
             }
+        }
+        finally{
+            pool.shutdown();
+        }
+
+        if(found == NodeArena.NONE){
+            System.out.println("Error occurred while running parallel BFS! Search failed!");
+            return null;
+        }
+
+        Node result = arena.toNode(found, start);
+        double time_end = (System.currentTimeMillis() - start_time);
+        int visited = set.size();
+        metrics.closed(visited);
+        metrics.setEstimatedBytes((long) visited * 16 + arena.bytes());      //table slots + arena
+        metrics.setParallelism(threads, baselineTime > 0 ? baselineTime / Math.max(time_end, 1) : 0);
+        metrics.finish(result, visited, set.getProbes(), time_end);
+        printResults(metrics);
+        return result;
+    }
+
+    /*
+    Method run by the parallel BFS workers: expands the arena nodes from..to-1 and returns their unvisited successors
+     */
+    private static LayerChunk expandChunk(NodeArena arena, int from, int to, int gridDimension, ConcurrentLongHashSet set){
+        LayerChunk chunk = new LayerChunk((to - from) * 2);
+        SuccessorBuffer successors = new SuccessorBuffer();
+        for(int node = from; node < to; node++){
+            int count = State.expand(arena.getState(node), gridDimension, null, successors);
+            chunk.generated += count;
+            for(int i = 0; i < count; i++){
+                if(set.add(successors.getState(i))) chunk.add(successors.getState(i), node, successors.getMove(i));
+            }
+        }
+        return chunk;
+    }
 
-            ArrayList<Node> possibleMoves = node.checkMoves();
+    /*
+    New nodes found by a parallel BFS worker, to be appended to the arena
+     */
+    private static class LayerChunk {
+        long[] states;
+        int[] parents;
+        Move[] moves;
+        int size;
+        long generated;
+
+        LayerChunk(int capacity){
+            capacity = Math.max(capacity, 16);
+            states = new long[capacity];
+            parents = new int[capacity];
+            moves = new Move[capacity];
+        }
 
-            for(Node n : possibleMoves){
-                if (!set.contains(n)){
-                    set.add(n);
-                    stack.push(n);
+        void add(long state, int parent, Move move){
+            if(size == states.length){
+                states = Arrays.copyOf(states, size * 2);
+                parents = Arrays.copyOf(parents, size * 2);
+                moves = Arrays.copyOf(moves, size * 2);
+            }
+            states[size] = state;
+            parents[size] = parent;
+            moves[size++] = move;
+        }
+    }
+
+    /*
+    Methods to measure the parallel BFS speedup: parallelBreadthFirst() with 1, 2, 4... threads up to the number of
+    available cores, against the time of breadthFirst(). The baseline time can be passed (eg the one of the BFS row
+    just printed); otherwise breadthFirst() is timed on a copy of this world with no sink and no listeners, so that
+    no second BFS row is written.
+     */
+    public Node parallelBreadthFirstSweep(Node start, Node finish) throws Exception{
+        BlocksWorld quiet = new BlocksWorld(start.getState(), finish.getState(), null);
+        quiet.limits = limits;
+        quiet.spillDirectory = spillDirectory;
+        quiet.bitmapSets = bitmapSets;
+
+        long start_time = System.currentTimeMillis();
+        quiet.breadthFirst(quiet.current, quiet.finish);
+        return parallelBreadthFirstSweep(start, finish, System.currentTimeMillis() - start_time);
+    }
+
+    public Node parallelBreadthFirstSweep(Node start, Node finish, double baselineTime) throws Exception{
+        Node result = null;
+        int cores = Runtime.getRuntime().availableProcessors();
+        for(int threads = 1; ; threads = Math.min(threads * 2, cores)){
+            result = parallelBreadthFirst(start, finish, threads, baselineTime);
+            if(threads == cores) break;
+        }
+        return result;
+    }
+
+
+    /*
+    Method to perform a bidirectional BFS: one frontier grows forwards from the start node and one backwards from
+    the finish node, one whole layer at a time (the smaller frontier first), until they meet. Moves are reversible
+    (a move is undone by its opposite), so the predecessors of a state are its successors and the backward frontier
+    is expanded with checkMoves() as well. All the meetings found in the layer where the frontiers first touch are
+    considered and the shortest is kept, so the solution is optimal. The path is stitched from the forward chain and
+    the backward chain (followed with opposite moves), so displaySolution() returns the full list of moves.
+     */
+    public Node bidirectionalSearch(Node start, Node finish) throws Exception{
+        resetPeakHeap();
+        long start_time = System.currentTimeMillis();
+        int n = start.getState().gridDimension;
+        SearchMetrics metrics = new SearchMetrics("BIDI", n);
+
+        if(isGoal(start.getState().getPacked(), finish.getState().getPacked(), metrics)){
+            metrics.finish(start, 1, 0, System.currentTimeMillis() - start_time);
+            printResults(metrics);
+            return start;
+        }
+
+        NodeArena forwardNodes = new NodeArena(expectedStates(start));       //every node reached from each side, by layer
+        NodeArena backwardNodes = new NodeArena(expectedStates(start));
+        LongIntHashMap forwardSeen = new LongIntHashMap(expectedStates(start));     //packed state -> index in the arenas
+        LongIntHashMap backwardSeen = new LongIntHashMap(expectedStates(start));
+        int forwardFrom = 0;            //first node of each side's current layer, which runs to the end of its arena
+        int backwardFrom = 0;
+        SuccessorBuffer successors = new SuccessorBuffer();
+
+        forwardSeen.put(start.getState().getPacked(), forwardNodes.addRoot(start.getState().getPacked(), 0));
+        backwardSeen.put(finish.getState().getPacked(), backwardNodes.addRoot(finish.getState().getPacked(), 0));
+
+        while(forwardFrom < forwardNodes.size() && backwardFrom < backwardNodes.size()){
+            int stored = forwardSeen.size() + backwardSeen.size();
+            checkLimits(metrics, stored, forwardSeen.bytes() + backwardSeen.bytes() + forwardNodes.bytes() + backwardNodes.bytes(), start_time);
+            boolean forward = forwardNodes.size() - forwardFrom <= backwardNodes.size() - backwardFrom;
+            NodeArena nodes = forward ? forwardNodes : backwardNodes;
+            LongIntHashMap seen = forward ? forwardSeen : backwardSeen;
+            NodeArena otherNodes = forward ? backwardNodes : forwardNodes;
+            LongIntHashMap otherSeen = forward ? backwardSeen : forwardSeen;
+            int from = forward ? forwardFrom : backwardFrom;
+            int to = nodes.size();
+
+            //best meeting in this layer: node and move reaching it on this side, node on the other side
+            int bestParent = NodeArena.NONE, bestThere = NodeArena.NONE, bestLength = Integer.MAX_VALUE;
+            Move bestMove = null;
+
+            for(int node = from; node < to; node++){
+                int count = expand(nodes.getState(node), n, successors, metrics);
+                for(int i = 0; i < count; i++){
+                    long key = successors.getState(i);
+                    long t = metrics.begin(SearchMetrics.GOAL_TEST);      //meeting test, the goal test of this search
+                    int other = otherSeen.get(key, -1);
+                    metrics.end(SearchMetrics.GOAL_TEST, t);
+                    if(other >= 0 && nodes.getDepth(node) + 1 + otherNodes.getDepth(other) < bestLength){
+                        bestLength = nodes.getDepth(node) + 1 + otherNodes.getDepth(other);
+                        bestParent = node;
+                        bestMove = successors.getMove(i);
+                        bestThere = other;
+                    }
+                    if(!seen.containsKey(key)){
+                        seen.put(key, nodes.add(key, node, successors.getMove(i), 0));
+                    }
+                    else metrics.duplicate();
                 }
             }
+            metrics.open((nodes.size() - to) + (forward ? backwardNodes.size() - backwardFrom : forwardNodes.size() - forwardFrom));
+
+            if(bestParent != NodeArena.NONE){
+                Move[] here = nodes.getPath(bestParent, bestMove);
+                Move[] there = otherNodes.getPath(bestThere);
+                Node result = forward ? stitch(start, here, there) : stitch(start, there, here);
+                int visited = forwardSeen.size() + backwardSeen.size();
+                metrics.closed(visited);
+                metrics.setEstimatedBytes(forwardSeen.bytes() + backwardSeen.bytes() + forwardNodes.bytes() + backwardNodes.bytes());
+                metrics.finish(result, visited, forwardSeen.getProbes() + backwardSeen.getProbes(), System.currentTimeMillis() - start_time);
+                printResults(metrics);
+                return result;
+            }
+
+            if(forward) forwardFrom = to;
+            else backwardFrom = to;
         }
 
-        System.out.println("Error occurred while running DFS! Search failed!");     //nothing found - null returned
+        System.out.println("Error occurred while running bidirectional BFS! Search failed!");
         return null;
     }
 
+    /*
+    Method to join a forward path (from the start node to the meeting state) with a backward path reaching the same
+    state from the finish node: the backward moves are replayed from the meeting state in reverse order, each one
+    reversed.
+     */
+    private Node stitch(Node start, Move[] forward, Move[] backward){
+        Move[] moves = Arrays.copyOf(forward, forward.length + backward.length);
+        for(int i = 0; i < backward.length; i++){
+            moves[forward.length + i] = backward[backward.length - 1 - i].opposite();
+        }
+        return Node.replay(start, moves);
+    }
+
+    /*
+    Methods to perform depth-first search (DFS), adapted from pseudocodes found on Wikipedia, lecture slides and
+    AIAMA2e (Russell-Norvig). Works similarly to BFS one above, minor modifications, uses stack instead of queue DS.
+    DFS makes no claim to optimality, so states are tested when generated too.
+     */
+    public Node depthFirst(Node start, Node finish) throws Exception{
+        return depthFirst(start, finish, new ExactGoal(finish.getState()));
+    }
+
+    public Node depthFirst(Node start, Node finish, GoalTest goal) throws Exception{
+        StateSet set = closedSet(start);
+        try{
+            return depthFirst(start, goal, set);
+        }
+        finally{
+            releaseClosedSet(set);
+        }
+    }
+
+    private Node depthFirst(Node start, GoalTest goal, StateSet set) throws Exception{
+        resetPeakHeap();
+        long start_time = System.currentTimeMillis();
+        int n = start.getState().gridDimension;
+        SearchMetrics metrics = new SearchMetrics("DFS" + label(goal), n);
+
+        NodeArena arena = new NodeArena(expectedStates(start));
+        int[] stack = new int[64];              //use stack of arena indices to store nodes to visit, not queue (like BFS)
+        int top = 0;
+        SuccessorBuffer successors = new SuccessorBuffer();
+        stack[top++] = arena.addRoot(start.getState().getPacked(), 0);
+        set.add(start.getState().getPacked());
+        int found = isGoal(start.getState().getPacked(), goal, metrics) ? 0 : NodeArena.NONE;
+
+        while(found == NodeArena.NONE && top > 0){
+            checkLimits(metrics, set.size(), set.bytes() + arena.bytes() + stack.length * 4L, start_time);
+            int node = stack[--top];     //pop element to analyse from stack
+            long state = arena.getState(node);
+
+            int count = expand(state, n, successors, metrics);
+
+            //search completed when a neighbour pushed on the stack matches goal
+            for(int i = 0; i < count && found == NodeArena.NONE; i++){
+                if (set.add(successors.getState(i))){
+                    if(top == stack.length) stack = Arrays.copyOf(stack, top * 2);
+                    stack[top++] = arena.add(successors.getState(i), node, successors.getMove(i), 0);
+                    if(isGoal(successors.getState(i), goal, metrics)) found = stack[top - 1];
+                }
+                else metrics.duplicate();
+            }
+            metrics.open(top);
+        }
+
+        if(found == NodeArena.NONE){
+            System.out.println("Error occurred while running DFS! Search failed!");     //nothing found - null returned
+            return null;
+        }
+
+        Node result = arena.toNode(found, start);
+        metrics.closed(set.size());
+        metrics.setEstimatedBytes(set.bytes() + arena.bytes() + stack.length * 4L);
+        metrics.finish(result, set.size(), set.getProbes(), System.currentTimeMillis() - start_time);
+        printResults(metrics);
+        return result;
+    }
+
     /*/
-    Two methods to perform Iterative Deepening Search (IDS). The first method starts from depth 1, creates null
-    node, calls the IDS-performing method and stores the returned Node in n. While still null, continues looping
-    to find IDS solution. Depth is increased at every iteration.
-    IDS code in performIDS() is adapted from pseudocode found on Russell-Norvig, websites and lecture slides
-    NOTE: the 'end' and 'time' variables passed to the iterativeDeepening() method are just for result-printing
-    purposes due to the fact that the search is split between two methods!
+    Two methods to perform Iterative Deepening Search (IDS). The first method starts from depth 1 and calls the
+    depth-limited DFS in performIDS() with increasing depth until it returns a solution, then prints the results.
+    The visited map and the node arena are allocated once and cleared at every iteration; the number of states
+    visited and of probes is summed over all iterations of this call only.
+    IDS code in performIDS() is adapted from pseudocode found on Russell-Norvig, websites and lecture slides.
+    With a GoalTest, nodes are tested when expanded as before: a goal generated at the depth limit is only found by
+    the next iteration, which keeps the solution a shallowest one.
      */
-    public Node iterativeDeepening(Node start, Node finish,Node end,double time) throws Exception{
+    public Node iterativeDeepening(Node start, Node finish) throws Exception{
+        return iterativeDeepening(start, finish, new ExactGoal(finish.getState()));
+    }
 
+    public Node iterativeDeepening(Node start, Node finish, GoalTest goal) throws Exception{
+
+        resetPeakHeap();
         long start_time = System.currentTimeMillis();
 
+        SearchMetrics metrics = new SearchMetrics("IDS" + label(goal), start.getState().gridDimension);
+        LongIntHashMap map = new LongIntHashMap(expectedStates(start));      //visited states and depths, reused
+        NodeArena arena = new NodeArena(expectedStates(start));
+        int totalIDSMoves = 0;      //total number of moves performed by IDS during all iterations
         int depth = 1;      //initial depth
         Node n = null;      //initially, null node created, will be equal to what the DFS returns at 'depth' depth
 
-        if(end == null){
-            while(n == null){
-                n = performIDS(start, finish, depth,start_time);        //perform DFS with max depth 'depth'
-                depth++;            //increase depth, after having set n to be what the IDDFS returned
+        while(n == null){
+            map.clear();
+            arena.clear();
+            SearchIterationEvent event = new SearchIterationEvent();
+            event.begin();
+            n = performIDS(start, goal, depth, map, arena, start_time, metrics);        //perform DFS with max depth 'depth'
+            totalIDSMoves += map.size();        //add the number of visited nodes in this iteration to the total
+            metrics.closed(map.size());
+
+            event.end();
+            if(event.shouldCommit()){
+                event.search = metrics.getSearch();
+                event.gridDimension = start.getState().gridDimension;
+                event.bound = depth;
+                event.stored = map.size();
+                event.expanded = metrics.getExpanded();
+                event.solved = n != null;
+                event.commit();
             }
-        }
-        else{
-            //when match found, print to output the results
-            out.println("IDS" + "," + start.getState().gridDimension + "," + end.getDepth() + "," + totalIDSMoves + "," + time);
+            depth++;            //increase depth, after having set n to be what the IDDFS returned
         }
 
+        //when match found, print to output the results
+        metrics.setEstimatedBytes(map.bytes() + arena.bytes());
+        metrics.finish(n, totalIDSMoves, map.getProbes(), System.currentTimeMillis() - start_time);
+        printResults(metrics);
         return n;
     }
 
-    public Node performIDS(Node start, Node finish, int depth, long time) throws Exception{     //DFS with limited depth (iterative deepening)
+    public Node performIDS(Node start, Node finish, int depth, LongIntHashMap map, NodeArena arena, long start_time, SearchMetrics metrics) throws Exception{     //DFS with limited depth (iterative deepening)
+        return performIDS(start, new ExactGoal(finish.getState()), depth, map, arena, start_time, metrics);
+    }
+
+    public Node performIDS(Node start, GoalTest goal, int depth, LongIntHashMap map, NodeArena arena, long start_time, SearchMetrics metrics) throws Exception{
 
-        Stack stack = new Stack();      //uses stack DS like DFS
-        Map<Node,Integer> map = new HashMap<Node, Integer>();       //uses Map DS to store visited nodes and depths
-        stack.push(start);
-        map.put(start, start.getDepth());       //start node entered in Map with initial depth
+        int n = start.getState().gridDimension;
+        int[] stack = new int[64];      //uses stack (of arena indices) like DFS
+        int top = 0;
+        SuccessorBuffer successors = new SuccessorBuffer();
+        stack[top++] = arena.addRoot(start.getState().getPacked(), 0);
+        map.put(start.getState().getPacked(), 0);       //start node entered in Map with initial depth
 
-        while(!stack.isEmpty()){
-            Node node = (Node) stack.pop();
+        while(top > 0){
+            checkLimits(metrics, map.size(), map.bytes() + arena.bytes() + stack.length * 4L, start_time);
+            int node = stack[--top];
+            long state = arena.getState(node);
 
-            if(node.getState().compareTo(finish.getState())){
-                double end_time = (System.currentTimeMillis() - time);
-                iterativeDeepening(start,finish,node,end_time);
-                return node;
+            if(isGoal(state, goal, metrics)){
+                return arena.toNode(node, start);
             }
 
             //if the node is at smaller depth than current target maximum depth for the search, check if it's in map, etc.
-            if(depth > node.getDepth()){
-                ArrayList<Node> possibleMoves = node.checkMoves();
-                for(Node n : possibleMoves){
-                    if (!map.containsKey(n) || map.get(n) >= n.getDepth()){
-                        map.put(n, n.getDepth());
-                        stack.push(n);
+            int nextDepth = arena.getDepth(node) + 1;
+            if(depth >= nextDepth){
+                int count = expand(state, n, successors, metrics);
+                for(int i = 0; i < count; i++){
+                    long key = successors.getState(i);
+                    if (map.get(key, Integer.MAX_VALUE) >= nextDepth){      //not visited, or visited deeper
+                        map.put(key, nextDepth);
+                        if(top == stack.length) stack = Arrays.copyOf(stack, top * 2);
+                        stack[top++] = arena.add(key, node, successors.getMove(i), 0);
                     }
+                    else metrics.duplicate();
                 }
+                metrics.open(top);
             }
         }
 
-        totalIDSMoves += map.size();        //add the number of visited nodes in this iteration to the global number
         return null;
     }
 
+    /*
+    Method to perform an Iterative Deepening A* (IDA*) search, see the IDAStar class. It runs in memory independent
+    of the explored space (apart from the bounded transposition table, ttEntries states, 0 to disable it), which
+    makes it usable on grids where BFS and A* run out of heap.
+     */
+    public Node idaStar(Node start, Node finish) throws Exception{
+        return idaStar(start, finish, IDA_TABLE_ENTRIES);
+    }
+
+    public Node idaStar(Node start, Node finish, int ttEntries) throws Exception{
+        return idaStar(start, finish, ttEntries, new ManhattanHeuristic(finish.getState()));
+    }
+
+    public Node idaStar(Node start, Node finish, int ttEntries, Heuristic estimator) throws Exception{
+        return idaStar(start, finish, ttEntries, estimator, new ExactGoal(finish.getState()));
+    }
+
+    public Node idaStar(Node start, Node finish, int ttEntries, Heuristic estimator, GoalTest goal) throws Exception{
+        resetPeakHeap();
+        long start_time = System.currentTimeMillis();
+
+        SearchMetrics metrics = new SearchMetrics("IDA*" + label(estimator) + label(goal), start.getState().gridDimension);
+
+        IDAStar search = new IDAStar(finish.getState(), tableEntries(ttEntries), estimator, goal);
+        if(search.solve(start.getState(), limits, start_time, metrics) < 0){
+            System.out.println("Error occurred while running IDA*! Search failed!");
+            return null;
+        }
+
+        Node result = search.getSolution(start);
+        metrics.finish(result, (int) Math.min(search.getGenerated(), Integer.MAX_VALUE), search.getProbes(), System.currentTimeMillis() - start_time);
+        printResults(metrics);
+        return result;
+    }
+
     /*
     Method to perform an A* heuristic search, adapted from pseudocode in Russell-Norvig, on Wikipedia and online.
+    The open list is a BucketQueue (buckets by f-value) so duplicate checks and decrease-key are constant time; ties
+    on f are broken in favour of deeper nodes unless another TieBreak is passed.
      */
     public Node heuristic(Node start, Node finish) throws Exception{
+        return heuristic(start, finish, BucketQueue.TieBreak.HIGH_DEPTH);
+    }
+
+    public Node heuristic(Node start, Node finish, BucketQueue.TieBreak tieBreak) throws Exception{
+        return heuristic(start, finish, tieBreak, new ManhattanHeuristic(finish.getState()));
+    }
+
+    /*
+    A* with the passed Heuristic (eg the pattern databases returned by patternHeuristic()) in place of the Manhattan
+    estimate; it has to be consistent, as closed states are never reopened.
+    When the open and closed lists grow past the memory budget of the limits, the search degrades to IDA* with the
+    same heuristic (still optimal, memory bounded by its transposition table); the row printed is then the IDA* one.
+     */
+    public Node heuristic(Node start, Node finish, BucketQueue.TieBreak tieBreak, Heuristic estimator) throws Exception{
+        return heuristic(start, finish, tieBreak, estimator, new ExactGoal(finish.getState()));
+    }
+
+    /*
+    A* (and IDA* as above) ending at the states passing the GoalTest, tested when expanded as testing when generated
+    would lose optimality. The estimate has to be admissible for every goal state: the Manhattan one (see
+    defaultEstimate()) only counts A, B and C, so it stays admissible for a TilesGoal; the pattern databases count the
+    agent's cell and can overestimate the distance to a TilesGoal, they must only be used with the exact goal. For a
+    GoalStateSet the default is the smallest Manhattan estimate over the set.
+     */
+    public Node heuristic(Node start, Node finish, GoalTest goal) throws Exception{
+        return heuristic(start, finish, BucketQueue.TieBreak.HIGH_DEPTH, defaultEstimate(finish, goal), goal);
+    }
+
+    public Node heuristic(Node start, Node finish, BucketQueue.TieBreak tieBreak, Heuristic estimator, GoalTest goal) throws Exception{
+        try{
+            return aStar(start, goal, tieBreak, estimator);
+        }
+        catch(SearchAbortedException e){
+            if(e.getReason() != SearchAbortedException.Reason.MEMORY) throw e;
+            System.out.println("A*" + label(estimator) + label(goal) + " over the memory budget after " + e.getMetrics().getExpanded()
+                    + " expansions, continuing with IDA*");
+            return idaStar(start, finish, IDA_TABLE_ENTRIES, estimator, goal);     //A* lists are garbage by now
+        }
+    }
+
+    private Node aStar(Node start, GoalTest goal, BucketQueue.TieBreak tieBreak, Heuristic estimator) throws Exception{
+        resetPeakHeap();
         long start_time = System.currentTimeMillis();
 
-        Queue queue = new PriorityQueue();
-        HashSet set = new HashSet();
-        start.getCostEstimate(finish);      //create cost estimate (saved within the start node's parameters) for path to finish node
-        queue.add(start);
+        int n = start.getState().gridDimension;
+        SearchMetrics metrics = new SearchMetrics("A*" + label(estimator) + label(goal), n);
+        NodeArena arena = new NodeArena(expectedStates(start));
+        BucketQueue queue = new BucketQueue(tieBreak, expectedStates(start), arena);
+        LongHashSet set = new LongHashSet(expectedStates(start));
+        SuccessorBuffer successors = new SuccessorBuffer();
+        long root = start.getState().getPacked();
+        queue.offer(arena.addRoot(root, estimate(root, estimator, metrics)));      //root with its estimate to the finish node
 
         while(!queue.isEmpty()){
-            Node current = (Node) queue.poll();
+            checkLimits(metrics, set.size() + queue.size(), set.bytes() + queue.bytes() + arena.bytes(), start_time);
+            int current = queue.poll();
+            long state = arena.getState(current);
 
-            if(current.getState().compareTo(finish.getState())){
-                double time_end = (System.currentTimeMillis() - start_time);
-                printResults("A*",start,current,time_end,set);
-                return current;
+            if(isGoal(state, goal, metrics)){
+                Node result = arena.toNode(current, start);
+                metrics.closed(set.size());
+                metrics.setEstimatedBytes(set.bytes() + queue.bytes() + arena.bytes());
+                metrics.finish(result, set.size(), set.getProbes(), System.currentTimeMillis() - start_time);
+                printResults(metrics);
+                return result;
             }
 
-            set.add(current);
-            ArrayList<Node> possibleMoves = current.checkMoves();
+            set.add(state);
+            int depth = arena.getDepth(current) + 1;
+            int count = expand(state, n, successors, metrics);
 
-            for(Node n : possibleMoves){
-                if (!set.contains(n) && !queue.contains(n)){
-                    n.getCostEstimate(finish);                      //create and store cost estimate from neighbour to finish node (state)
-                    queue.add(n);
+            for(int i = 0; i < count; i++){
+                long next = successors.getState(i);
+                //queued only if new or reached with a smaller depth, with its estimate to the finish node
+                if (!set.contains(next) && queue.accepts(next, depth)){
+                    queue.offer(arena.add(next, current, successors.getMove(i), estimate(next, estimator, metrics)));
                 }
+                else metrics.duplicate();
             }
+            metrics.open(queue.size());
         }
         return null;
     }
 
+    /*
+    Method to perform an anytime A* (see AnytimeAStar) for at most maxMillis ms: weighted A* runs with decreasing
+    weights, the first returning a solution quickly and the next ones improving it, each improvement being passed to
+    the listener (may be null) with its depth and error bound. Returns the best solution found by the deadline, which
+    is optimal if the runs got to weight 1; the CSV row is printed for that solution. Returns null if no solution was
+    found in time.
+     */
+    public Node anytimeHeuristic(Node start, Node finish, long maxMillis, AnytimeListener listener) throws Exception{
+        return anytimeHeuristic(start, finish, maxMillis, listener, AnytimeAStar.DEFAULT_WEIGHTS, new ManhattanHeuristic(finish.getState()));
+    }
+
+    public Node anytimeHeuristic(Node start, Node finish, long maxMillis, AnytimeListener listener, double[] weights,
+                                 Heuristic estimator) throws Exception{
+        resetPeakHeap();
+        long start_time = System.currentTimeMillis();
+
+        SearchMetrics metrics = new SearchMetrics("A*-ANY" + label(estimator), start.getState().gridDimension);
+        AnytimeAStar search = new AnytimeAStar(finish.getState(), estimator, weights);
+        if(search.solve(start, start_time + maxMillis, limits, start_time, metrics, listener) < 0){
+            System.out.println("Anytime A* found no solution in " + maxMillis + " ms!");
+            return null;
+        }
+
+        Node result = search.getSolution(start);
+        metrics.finish(result, metrics.getPeakClosed(), 0, System.currentTimeMillis() - start_time);
+        printResults(metrics);
+        return result;
+    }
+
+    /*
+    Method to perform a hash-distributed parallel A* (HDA*, see HDAStar) on the given number of threads, with the
+    Manhattan estimate or the passed Heuristic (consistent, and safe to share between threads). Every worker stores
+    the states hashed to it, so the tables are pre-sized for an equal share of the states. The solution depth is the
+    same as heuristic()'s; the CSV row also reports the threads used.
+     */
+    public Node parallelHeuristic(Node start, Node finish, int threads) throws Exception{
+        return parallelHeuristic(start, finish, threads, new ManhattanHeuristic(finish.getState()));
+    }
+
+    public Node parallelHeuristic(Node start, Node finish, int threads, Heuristic estimator) throws Exception{
+        resetPeakHeap();
+        long start_time = System.currentTimeMillis();
+
+        SearchMetrics metrics = new SearchMetrics("A*-HD" + label(estimator), start.getState().gridDimension);
+        HDAStar search = new HDAStar(finish.getState(), threads, estimator);
+        int expected = Math.max(expectedStates(start) / threads, 16);
+        if(search.solve(start.getState(), expected, limits, start_time, metrics) < 0){
+            System.out.println("Error occurred while running HDA*! Search failed!");
+            return null;
+        }
+
+        Node result = search.getSolution(start);
+        metrics.setParallelism(threads, 0);
+        metrics.finish(result, metrics.getPeakClosed(), search.getProbes(), System.currentTimeMillis() - start_time);
+        printResults(metrics);
+        return result;
+    }
+
     /*
     Method used to test that the methods worked. Printed to output console various parameters, like start and end configurations of the
     world board, depth of solution, moves and time taken to reach it, path cost. Commented out due to the newer one printing to csv files.
@@ -226,11 +919,153 @@ public class BlocksWorld{
     */
 
     /*
-    Method to print the searches' results. Takes and prints in CSV format some data about search results on various search spaces,
-    prints it to the file the output stream is linked to.
+    Method to print the searches' results. Passes the metrics of a finished search (depth, visited states, time and
+    the other figures of SearchMetrics, see SearchMetrics.CSV_HEADER for the columns) to the results sink, which writes
+    them as a CSV row or a binary record, then to the listeners. It is called once the search has been timed; with an
+    AsyncResultSink the writing itself happens on another thread.
      */
-    public void printResults(String search, Node start, Node current, double srcTime, Set set) throws Exception{
-        out.println(search + "," + current.getState().gridDimension + "," + current.getDepth() + "," + set.size() + "," + srcTime);
+    public void printResults(SearchMetrics metrics) throws Exception{
+        if(!heapMeasured) metrics.clearPeakHeap();
+        if(sink != null) sink.write(metrics);
+        for(SearchListener listener : listeners){
+            listener.searchFinished(metrics);
+        }
+    }
+
+    /*
+    Method returning the pattern database heuristic for this world's finish node (see PatternHeuristic), tables are
+    memory-mapped from PatternDatabase.DEFAULT_DIRECTORY, and built there the first time
+     */
+    public Heuristic patternHeuristic(boolean additive) throws Exception{
+        return PatternHeuristic.forGoal(finish.getState(), additive, PatternDatabase.DEFAULT_DIRECTORY);
+    }
+
+    static String label(Heuristic estimator){       //suffix for the search name in the results, none for Manhattan
+        return estimator instanceof ManhattanHeuristic ? "" : "-" + estimator.getName();
+    }
+
+    static Heuristic defaultEstimate(Node finish, GoalTest goal){      //admissible for the goal, see heuristic()
+        if(goal instanceof GoalStateSet) return ((GoalStateSet) goal).manhattan();
+        return new ManhattanHeuristic(finish.getState());
+    }
+
+    static String label(GoalTest goal){             //suffix for the search name in the results, none for the exact goal
+        return goal instanceof ExactGoal ? "" : "-" + goal.getName();
+    }
+
+    /*
+    Instrumented versions of the goal test, successor generation and cost estimate, used by all the searches so that
+    the metrics are counted and timed in the same way
+     */
+    static int expand(long packed, int gridDimension, SuccessorBuffer successors, SearchMetrics metrics){
+        metrics.expanded();
+        long t = metrics.begin(SearchMetrics.SUCCESSORS);
+        int count = State.expand(packed, gridDimension, null, successors);
+        metrics.end(SearchMetrics.SUCCESSORS, t);
+        metrics.generated(count);
+        return count;
+    }
+
+    static boolean isGoal(long packed, long goal, SearchMetrics metrics){
+        long t = metrics.begin(SearchMetrics.GOAL_TEST);
+        boolean found = packed == goal;
+        metrics.end(SearchMetrics.GOAL_TEST, t);
+        return found;
+    }
+
+    static boolean isGoal(long packed, GoalTest goal, SearchMetrics metrics){
+        long t = metrics.begin(SearchMetrics.GOAL_TEST);
+        boolean found = goal.isGoal(packed);
+        metrics.end(SearchMetrics.GOAL_TEST, t);
+        return found;
+    }
+
+    static int estimate(long packed, Heuristic estimator, SearchMetrics metrics){
+        long t = metrics.begin(SearchMetrics.HEURISTIC);
+        int estimate = estimator.estimate(packed);
+        metrics.end(SearchMetrics.HEURISTIC, t);
+        return estimate;
+    }
+
+    /*
+    Method checking this world's limits with the figures of a running search; the estimated bytes are the heap bytes
+    of its data as reported by the structures themselves (the bytes() of the visited table, the NodeArena, the open
+    list and any stack), off-heap bitmaps excepted. When a limit is passed, the exception thrown carries the metrics
+    of the search up to that point.
+     */
+    void checkLimits(SearchMetrics metrics, long states, long bytes, long start_time) throws SearchAbortedException{
+        try{
+            limits.check(states, bytes, start_time);
+        }
+        catch(SearchAbortedException e){
+            metrics.setEstimatedBytes(bytes);
+            metrics.aborted(e.getReason());
+            metrics.finish(null, (int) Math.min(states, Integer.MAX_VALUE), 0, System.currentTimeMillis() - start_time);
+            e.setMetrics(metrics);
+            throw e;
+        }
+    }
+
+    /*
+    Methods taking and giving back the closed set of BFS and DFS: one bit per state of the grid (RankBitmapSet, mapped
+    from a file in spillDirectory, off the heap) when the bitmap is under MAX_BITMAP_BYTES and the off-heap budget of
+    the limits, as it then costs no heap and no hashing however many states are visited; a LongHashSet pre-sized as
+    usual otherwise. A mapping is only released when its set is collected, so each thread keeps its last bitmap in
+    BITMAPS and clears it for the next search of the same grid size, rather than mapping a new file for every search:
+    a thread holds at most one bitmap, whatever the number of searches it runs (BatchSolver, SolverServer). The bitmap
+    is taken out of BITMAPS while in use, so a search started meanwhile on the same thread maps its own.
+     */
+    StateSet closedSet(Node start) throws IOException{
+        int n = start.getState().gridDimension;
+        long bitmapBytes = State.stateCount(n) / 8;
+        if(!bitmapSets || bitmapBytes >= MAX_BITMAP_BYTES || limits.exceedsOffHeapBytes(bitmapBytes)){
+            return new LongHashSet(expectedStates(start));
+        }
+
+        RankBitmapSet bitmap = BITMAPS.get();
+        BITMAPS.remove();
+        if(bitmap == null || bitmap.getGridDimension() != n) return new RankBitmapSet(n, spillDirectory);
+        bitmap.clear();
+        return bitmap;
+    }
+
+    void releaseClosedSet(StateSet set){
+        if(set instanceof RankBitmapSet) BITMAPS.set((RankBitmapSet) set);
+    }
+
+    int tableEntries(int wanted){       //IDA* table entries, reduced to fit in half the memory budget (16 bytes each)
+        long budget = limits.getMaxBytes() / 2 / 16;
+        return budget > 0 && budget < wanted ? (int) budget : wanted;
+    }
+
+    /*
+    Helpers for the visited tables and the memory/throughput figures printed with the results. The tables are pre-sized
+    from the number of states of the grid (capped, also by a small part of the memory budget, they grow if needed),
+    the peak heap is read from the JVM heap pools, whose peak counters are reset at the beginning of every search.
+     */
+    int expectedStates(Node start){
+        long expected = Math.min(State.stateCount(start.getState().gridDimension), MAX_PRESIZE);
+        if(limits.getMaxBytes() > 0) expected = Math.min(expected, Math.max(limits.getMaxBytes() / 256, 16));
+        return (int) expected;
+    }
+
+    static long probesPerSecond(long probes, double timeMs){
+        return (long) (probes * 1000 / Math.max(timeMs, 1));
+    }
+
+    void resetPeakHeap(){                   //only when measured, not to reset the peak of another search's world
+        if(!heapMeasured) return;
+        for(MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()){
+            if(pool.getType() == MemoryType.HEAP) pool.resetPeakUsage();
+        }
+    }
+
+    static long peakHeap(){
+        long peak = 0;
+        for(MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()){
+            if(pool.getType() == MemoryType.HEAP) peak += pool.getPeakUsage().getUsed();
+        }
+        return peak;
     }
 
 }
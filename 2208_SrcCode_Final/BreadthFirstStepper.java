@@ -0,0 +1,58 @@
+/**
+ * AUTHOR: Roberto J Gregoratti - rjg1g12@ecs.soton.ac.uk , University of Southampton ECS
+ * PROJECT: COMP2208 Search Methods assignment (BlocksWorld coursework)
+ * VERSION: v1.0
+ * DATE: Jan 2014
+ * CLASS: BreadthFirstStepper (BFS run a slice at a time, see SearchStepper)
+ */
+
+/*
+This class is BlocksWorld.breadthFirst() as a SearchStepper: the same arena used as a FIFO queue (the nodes after
+head are the queue) and visited set, kept between slices.
+ */
+
+public class BreadthFirstStepper extends SearchStepper {
+
+    private final NodeArena arena;
+    private final LongHashSet set;
+    private int head;               //next node of the arena to analyse
+
+    BreadthFirstStepper(BlocksWorld world, Node start, GoalTest goal){
+        super(world, start, goal, "BFS-STEP" + BlocksWorld.label(goal));
+        arena = new NodeArena(world.expectedStates(start));
+        set = new LongHashSet(world.expectedStates(start));
+        arena.addRoot(start.getState().getPacked(), 0);
+        set.add(start.getState().getPacked());
+    }
+
+    protected Status advance(){
+        if(head == arena.size()) return Status.NO_SOLUTION;
+        int node = head++;
+        long state = arena.getState(node);
+        if(BlocksWorld.isGoal(state, goal, metrics)) return solved(arena.toNode(node, start));
+
+        int count = BlocksWorld.expand(state, gridDimension, successors, metrics);
+        for(int i = 0; i < count; i++){
+            if(set.add(successors.getState(i))) arena.add(successors.getState(i), node, successors.getMove(i), 0);
+            else metrics.duplicate();
+        }
+        metrics.open(arena.size() - head);
+        return Status.RUNNING;
+    }
+
+    protected int storedStates(){
+        return set.size();
+    }
+
+    protected int frontierSize(){
+        return arena.size() - head;
+    }
+
+    protected long bytes(){
+        return set.bytes() + arena.bytes();
+    }
+
+    protected long probes(){
+        return set.getProbes();
+    }
+}
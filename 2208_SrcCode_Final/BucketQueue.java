@@ -0,0 +1,199 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * AUTHOR: Roberto J Gregoratti - rjg1g12@ecs.soton.ac.uk , University of Southampton ECS
+ * PROJECT: COMP2208 Search Methods assignment (BlocksWorld coursework)
+ * VERSION: v1.0
+ * DATE: Jan 2014
+ * CLASS: BucketQueue (open list for A*, nodes bucketed by f-value with a state index for O(1) lookups)
+ */
+
+/*
+This class is the open list used by the A* search. Nodes are indices in a NodeArena, which holds their states,
+depths and estimates. The f-value of a node (estimate plus depth) is a small bounded integer, so instead of a binary
+heap the nodes are kept in one bucket per f-value, and within a bucket in one int deque per depth when ties are
+broken on depth. An index from packed state to the best depth
+queued so far makes membership checks and decrease-key constant time: a better path to a queued state is simply
+pushed again and the old entry is recognised as stale (and skipped) when it is polled.
+ */
+
+public class BucketQueue {
+
+    /*
+    How nodes with the same f-value are ordered: FIFO/LIFO on insertion order, or HIGH_DEPTH/LOW_DEPTH preferring
+    deeper/shallower nodes (ties on depth are LIFO). HIGH_DEPTH goes straight down plateaus towards the goal.
+     */
+    public enum TieBreak {
+        FIFO,
+        LIFO,
+        HIGH_DEPTH,
+        LOW_DEPTH
+    }
+
+    static final int POLLED = -1;           //index value of states that have been polled already
+
+    private final TieBreak tieBreak;
+    private final NodeArena arena;
+    private final ArrayList<IntDeque[]> buckets = new ArrayList<IntDeque[]>();     //f -> depth -> node indices
+    private int[] counts = new int[64];     //entries (live or stale) per f-value
+    private int minF;                       //no entry has an f-value below this
+    private int size;                       //live entries
+    private final LongIntHashMap index;     //packed state -> best depth queued, or POLLED
+
+    public BucketQueue(TieBreak tieBreak, int expectedSize, NodeArena arena){
+        this.tieBreak = tieBreak;
+        this.arena = arena;
+        this.index = new LongIntHashMap(expectedSize);
+    }
+
+    /*
+    Method to add a node, or to lower the depth of an already queued state (decrease-key). Returns false (and does
+    nothing) if the state has already been polled or is queued with a depth not greater than the node's.
+     */
+    public boolean offer(int node){
+        long key = arena.getState(node);
+        int depth = arena.getDepth(node);
+        int queued = index.get(key, Integer.MAX_VALUE);
+        if(queued == POLLED || queued <= depth) return false;
+
+        if(queued == Integer.MAX_VALUE) size++;         //new state, otherwise the queued entry becomes stale
+        index.put(key, depth);
+        push(node, depth);
+        return true;
+    }
+
+    /*
+    Method to queue again a state that has been polled already, reached later by a shorter path: only for searches
+    whose nodes are not polled in f order (the HDAStar workers), which check the depth themselves
+     */
+    public boolean reopen(int node){
+        long key = arena.getState(node);
+        if(index.get(key, Integer.MAX_VALUE) != POLLED) return offer(node);
+
+        size++;
+        index.put(key, arena.getDepth(node));
+        push(node, arena.getDepth(node));
+        return true;
+    }
+
+    /*
+    Method to check if a node with the given state and depth would be accepted by offer(), so that callers can avoid
+    adding to the arena nodes that would be refused
+     */
+    public boolean accepts(long packed, int depth){
+        int queued = index.get(packed, Integer.MAX_VALUE);
+        return queued != POLLED && queued > depth;
+    }
+
+    /*
+    Method to retrieve and remove the node with the lowest f-value (ties broken as configured), NodeArena.NONE if empty
+     */
+    public int poll(){
+        while(size > 0){
+            while(counts[minF] == 0) minF++;
+
+            IntDeque[] levels = buckets.get(minF);
+            int node = take(levels);
+            counts[minF]--;
+
+            long key = arena.getState(node);
+            if(index.get(key, POLLED) == arena.getDepth(node)){      //live entry, not superseded by a shallower one
+                index.put(key, POLLED);
+                size--;
+                return node;
+            }
+        }
+        return NodeArena.NONE;
+    }
+
+    public boolean contains(long packed){               //true if the state is queued and not polled yet
+        return index.get(packed, POLLED) != POLLED;
+    }
+
+    public boolean isEmpty(){
+        return size == 0;
+    }
+
+    public int size(){
+        return size;
+    }
+
+    public long bytes(){                //memory of the index (the queued nodes are not counted)
+        return index.bytes();
+    }
+
+    private void push(int node, int depth){
+        int f = arena.getF(node);
+        while(buckets.size() <= f) buckets.add(null);
+        if(counts.length <= f) counts = Arrays.copyOf(counts, Math.max(f + 1, counts.length * 2));
+
+        IntDeque[] levels = buckets.get(f);
+        if(levels == null){
+            boolean byDepth = tieBreak == TieBreak.HIGH_DEPTH || tieBreak == TieBreak.LOW_DEPTH;
+            levels = new IntDeque[byDepth ? f + 1 : 1];         //depth <= f as the heuristic is never negative
+            buckets.set(f, levels);
+        }
+
+        int level = levels.length == 1 ? 0 : Math.min(depth, levels.length - 1);
+        if(levels[level] == null) levels[level] = new IntDeque();
+        levels[level].addLast(node);
+
+        counts[f]++;
+        if(f < minF) minF = f;
+    }
+
+    private int take(IntDeque[] levels){
+        switch(tieBreak){
+            case FIFO:
+                return levels[0].pollFirst();
+            case LIFO:
+                return levels[0].pollLast();
+            case HIGH_DEPTH:
+                for(int i = levels.length - 1; i >= 0; i--){
+                    if(levels[i] != null && !levels[i].isEmpty()) return levels[i].pollLast();
+                }
+                break;
+            case LOW_DEPTH:
+                for(int i = 0; i < levels.length; i++){
+                    if(levels[i] != null && !levels[i].isEmpty()) return levels[i].pollLast();
+                }
+                break;
+        }
+        return NodeArena.NONE;
+    }
+
+    /*
+    Growable circular deque of ints (node indices), to avoid boxing them in an ArrayDeque
+     */
+    private static class IntDeque {
+        private int[] values = new int[16];
+        private int head;                   //index of the first value
+        private int size;
+
+        void addLast(int value){
+            if(size == values.length){
+                int[] grown = new int[values.length * 2];
+                for(int i = 0; i < size; i++) grown[i] = values[(head + i) & (values.length - 1)];
+                values = grown;
+                head = 0;
+            }
+            values[(head + size++) & (values.length - 1)] = value;
+        }
+
+        int pollFirst(){
+            int value = values[head];
+            head = (head + 1) & (values.length - 1);
+            size--;
+            return value;
+        }
+
+        int pollLast(){
+            return values[(head + --size) & (values.length - 1)];
+        }
+
+        boolean isEmpty(){
+            return size == 0;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * AUTHOR: Roberto J Gregoratti - rjg1g12@ecs.soton.ac.uk , University of Southampton ECS
+ * PROJECT: COMP2208 Search Methods assignment (BlocksWorld coursework)
+ * VERSION: v1.0
+ * DATE: Jan 2014
+ * CLASS: CheckMovesEvent (Java Flight Recorder event, one call of Node.checkMoves())
+ */
+
+/*
+This class is the JFR event of Node.checkMoves(), which allocates a list, Nodes and States for every expansion. It is
+emitted once per call, so it is disabled by default; to record it (and StateCreatedEvent), make a settings file with
+    jfr configure +blocksworld.CheckMoves#enabled=true +blocksworld.StateCreated#enabled=true --output blocksworld.jfc
+and run with -XX:StartFlightRecording:settings=blocksworld.jfc,filename=run.jfr
+ */
+
+@Name("blocksworld.CheckMoves")
+@Label("Check Moves")
+@Category("BlocksWorld")
+@Description("Successor Nodes generated by Node.checkMoves()")
+@Enabled(false)
+@StackTrace(false)
+public class CheckMovesEvent extends jdk.jfr.Event {
+
+    @Label("Grid Dimension")
+    int gridDimension;
+
+    @Label("Successors")
+    int successors;
+}
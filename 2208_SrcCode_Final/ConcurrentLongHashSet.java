@@ -0,0 +1,66 @@
+/**
+ * AUTHOR: Roberto J Gregoratti - rjg1g12@ecs.soton.ac.uk , University of Southampton ECS
+ * PROJECT: COMP2208 Search Methods assignment (BlocksWorld coursework)
+ * VERSION: v1.0
+ * DATE: Jan 2014
+ * CLASS: ConcurrentLongHashSet (striped set of packed states, shared by the threads of the parallel BFS)
+ */
+
+/*
+This class is a thread-safe set of packed states made of a number of LongHashSet stripes, each one guarded by its
+own lock. A key always goes to the same stripe (chosen from the top bits of its hash, the low bits being used for
+the slot inside the stripe), so threads adding different states rarely contend and there is no global lock.
+ */
+
+public class ConcurrentLongHashSet {
+
+    private final LongHashSet[] stripes;
+    private final int shift;            //hash >>> shift gives the stripe
+
+    public ConcurrentLongHashSet(int expectedSize, int concurrency){
+        int count = Integer.highestOneBit(Math.max(1, concurrency * 4 - 1)) << 1;     //power of two, ~4 per thread
+        stripes = new LongHashSet[count];
+        for(int i = 0; i < count; i++){
+            stripes[i] = new LongHashSet(Math.max(1, expectedSize / count));
+        }
+        shift = 32 - Integer.numberOfTrailingZeros(count);
+    }
+
+    public boolean add(long key){
+        LongHashSet stripe = stripeFor(key);
+        synchronized(stripe){
+            return stripe.add(key);
+        }
+    }
+
+    public boolean contains(long key){
+        LongHashSet stripe = stripeFor(key);
+        synchronized(stripe){
+            return stripe.contains(key);
+        }
+    }
+
+    public int size(){
+        int size = 0;
+        for(LongHashSet stripe : stripes){
+            synchronized(stripe){
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    public long getProbes(){
+        long probes = 0;
+        for(LongHashSet stripe : stripes){
+            synchronized(stripe){
+                probes += stripe.getProbes();
+            }
+        }
+        return probes;
+    }
+
+    private LongHashSet stripeFor(long key){
+        return shift == 32 ? stripes[0] : stripes[LongHashSet.hash(key) >>> shift];
+    }
+}
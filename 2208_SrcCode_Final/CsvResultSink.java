@@ -0,0 +1,53 @@
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+
+/**
+ * AUTHOR: Roberto J Gregoratti - rjg1g12@ecs.soton.ac.uk , University of Southampton ECS
+ * PROJECT: COMP2208 Search Methods assignment (BlocksWorld coursework)
+ * VERSION: v1.0
+ * DATE: Jan 2014
+ * CLASS: CsvResultSink (results written as CSV rows, the format of SearchResultsAgent.csv)
+ */
+
+/*
+This class writes every result record as a CSV row (SearchMetrics.toCsv(), columns of SearchMetrics.CSV_HEADER).
+Given a file, it writes the header first and buffers the rows, which reach the file on flush() or close(); given a
+PrintStream (the stream passed to a BlocksWorld), it prints the rows to it as they come, the header being the
+caller's.
+ */
+
+public class CsvResultSink implements ResultSink {
+
+    static final int BUFFER_BYTES = 1 << 16;
+
+    private final PrintStream out;
+    private final boolean owned;            //stream opened here, closed by close()
+
+    public CsvResultSink(File file) throws IOException{
+        this.out = new PrintStream(new BufferedOutputStream(new FileOutputStream(file), BUFFER_BYTES), false, "US-ASCII");
+        this.owned = true;
+        out.println(SearchMetrics.CSV_HEADER);
+    }
+
+    public CsvResultSink(PrintStream out){
+        this.out = out;
+        this.owned = false;
+    }
+
+    public void write(SearchMetrics metrics){
+        out.println(metrics.toCsv());           //single println, so rows written by several threads do not mix
+    }
+
+    public void flush() throws IOException{
+        out.flush();
+        if(out.checkError()) throw new IOException("Error: the results could not be written");
+    }
+
+    public void close() throws IOException{
+        flush();
+        if(owned) out.close();
+    }
+}
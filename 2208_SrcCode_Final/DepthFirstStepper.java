@@ -0,0 +1,64 @@
+import java.util.Arrays;
+
+/**
+ * AUTHOR: Roberto J Gregoratti - rjg1g12@ecs.soton.ac.uk , University of Southampton ECS
+ * PROJECT: COMP2208 Search Methods assignment (BlocksWorld coursework)
+ * VERSION: v1.0
+ * DATE: Jan 2014
+ * CLASS: DepthFirstStepper (DFS run a slice at a time, see SearchStepper)
+ */
+
+/*
+This class is BlocksWorld.depthFirst() as a SearchStepper: the same arena, stack of arena indices and visited set,
+kept between slices.
+ */
+
+public class DepthFirstStepper extends SearchStepper {
+
+    private final NodeArena arena;
+    private final LongHashSet set;
+    private int[] stack = new int[64];
+    private int top;
+
+    DepthFirstStepper(BlocksWorld world, Node start, GoalTest goal){
+        super(world, start, goal, "DFS-STEP" + BlocksWorld.label(goal));
+        arena = new NodeArena(world.expectedStates(start));
+        set = new LongHashSet(world.expectedStates(start));
+        stack[top++] = arena.addRoot(start.getState().getPacked(), 0);
+        set.add(start.getState().getPacked());
+    }
+
+    protected Status advance(){
+        if(top == 0) return Status.NO_SOLUTION;
+        int node = stack[--top];
+        long state = arena.getState(node);
+        if(BlocksWorld.isGoal(state, goal, metrics)) return solved(arena.toNode(node, start));
+
+        int count = BlocksWorld.expand(state, gridDimension, successors, metrics);
+        for(int i = 0; i < count; i++){
+            if(set.add(successors.getState(i))){
+                if(top == stack.length) stack = Arrays.copyOf(stack, top * 2);
+                stack[top++] = arena.add(successors.getState(i), node, successors.getMove(i), 0);
+            }
+            else metrics.duplicate();
+        }
+        metrics.open(top);
+        return Status.RUNNING;
+    }
+
+    protected int storedStates(){
+        return set.size();
+    }
+
+    protected int frontierSize(){
+        return top;
+    }
+
+    protected long bytes(){
+        return set.bytes() + arena.bytes() + stack.length * 4L;
+    }
+
+    protected long probes(){
+        return set.getProbes();
+    }
+}
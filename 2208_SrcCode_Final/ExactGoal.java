@@ -0,0 +1,29 @@
+/**
+ * AUTHOR: Roberto J Gregoratti - rjg1g12@ecs.soton.ac.uk , University of Southampton ECS
+ * PROJECT: COMP2208 Search Methods assignment (BlocksWorld coursework)
+ * VERSION: v1.0
+ * DATE: Jan 2014
+ * CLASS: ExactGoal (goal test matching the finish state, agent included, see State.compareTo())
+ */
+
+/*
+This class is the original goal test of the searches as a GoalTest object: A, B, C and the agent must all be on the
+cells of the finish state.
+ */
+
+public class ExactGoal implements GoalTest {
+
+    private final long goal;
+
+    public ExactGoal(State goal){
+        this.goal = goal.getPacked();
+    }
+
+    public boolean isGoal(long packed){
+        return packed == goal;
+    }
+
+    public String getName(){
+        return "EXACT";
+    }
+}
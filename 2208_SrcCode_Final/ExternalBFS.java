@@ -0,0 +1,382 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * AUTHOR: Roberto J Gregoratti - rjg1g12@ecs.soton.ac.uk , University of Southampton ECS
+ * PROJECT: COMP2208 Search Methods assignment (BlocksWorld coursework)
+ * VERSION: v1.0
+ * DATE: Jan 2014
+ * CLASS: ExternalBFS (disk-backed breadth-first search engine, used by BlocksWorld.externalBreadthFirst())
+ */
+
+/*
+This class performs a breadth-first search keeping its layers on disk instead of the heap, after Korf's external
+memory BFS with delayed duplicate detection. Every layer (the states at the same depth) is a file of sorted packed
+states. A layer is expanded by reading its file sequentially; successors are collected in a fixed buffer, which is
+sorted and written out as a run whenever it fills up. The runs are then merged with the two previous layers' files
+(all sorted, so one sequential pass): a successor already in the layer being expanded or the one before it is a
+duplicate, what's left is the next layer. Two layers are enough as every move can be undone by its opposite, so the
+neighbours of a state at depth d are at depth d-1, d or d+1.
+The heap used is the buffer plus one read buffer per open file, whatever the size of the explored space. The layer
+files are kept until the search ends: the solution is rebuilt backwards from the goal, finding at every depth a
+neighbour of the current state in the layer before by binary search in its file.
+ */
+
+public class ExternalBFS {
+
+    public static final int DEFAULT_BUFFER_STATES = 1 << 20;       //successors sorted in memory before being spilled
+    private static final int IO_BYTES = 1 << 16;                    //read/write buffer of every open file
+
+    private final int gridDimension;
+    private final long goal;
+    private final File directory;           //where the search's own temporary directory is created
+    private final long[] buffer;
+    private final SuccessorBuffer successors = new SuccessorBuffer();
+
+    private File workDirectory;
+    private final List<File> layers = new ArrayList<File>();     //sorted layer files, by depth
+    private final List<Long> layerSizes = new ArrayList<Long>();
+    private Move[] solution;
+    private SearchMetrics metrics;
+    private long diskBytes;                 //bytes written to disk, layers and runs
+
+    public ExternalBFS(State finish, File directory, int bufferStates){
+        if(bufferStates < SuccessorBuffer.CAPACITY){
+            throw new IllegalArgumentException("Error: the buffer must hold at least one state's successors");
+        }
+        this.gridDimension = finish.gridDimension;
+        this.goal = finish.getPacked();
+        this.directory = directory;
+        this.buffer = new long[bufferStates];
+    }
+
+    /*
+    Method to run the search from the passed configuration. Returns the number of moves of the solution (the moves can
+    then be read with getSolution()), or -1 if the goal cannot be reached. The limits are checked with the heap bytes
+    of the search, the metrics filled in as the layers are written. The layer files are deleted before returning.
+     */
+    public int solve(State start, SearchLimits limits, long startTime, SearchMetrics metrics) throws IOException, SearchAbortedException{
+        this.metrics = metrics;
+        directory.mkdirs();
+        workDirectory = Files.createTempDirectory(directory.toPath(), "bfs-").toFile();
+        try{
+            long first = start.getPacked();
+            writeLayer(new long[]{first}, 1, layerFile(0));
+            layers.add(layerFile(0));
+            layerSizes.add(1L);
+            long visited = 1;
+
+            if(isGoal(first)){
+                solution = new Move[0];
+                return 0;
+            }
+
+            for(int depth = 0; ; depth++){
+                limits.check(visited, heapBytes(depth), startTime);
+
+                List<File> runs = expandLayer(depth);
+                File next = layerFile(depth + 1);
+                long size = mergeRuns(runs, depth, next);
+                layerSizes.add(size);
+                visited += size;
+                metrics.open((int) Math.min(size, Integer.MAX_VALUE));
+                metrics.closed((int) Math.min(visited, Integer.MAX_VALUE));
+                metrics.setEstimatedBytes(heapBytes(depth + 1));
+
+                if(size == 0) return -1;                //whole space explored, no solution
+                if(isGoal(next, size)){
+                    solution = rebuild(depth + 1);
+                    return depth + 1;
+                }
+            }
+        }
+        finally{
+            for(File file : workDirectory.listFiles()) file.delete();
+            workDirectory.delete();
+        }
+    }
+
+    /*
+    Method to expand all the states of a layer, returns the sorted runs of successors (each without duplicates)
+     */
+    private List<File> expandLayer(int depth) throws IOException{
+        List<File> runs = new ArrayList<File>();
+        int count = 0;
+        LayerReader reader = new LayerReader(layers.get(depth));
+        try{
+            while(reader.hasNext()){
+                long state = reader.next();
+                if(count > buffer.length - SuccessorBuffer.CAPACITY){
+                    runs.add(spill(count, depth, runs.size()));
+                    count = 0;
+                }
+                metrics.expanded();
+                long t = metrics.begin(SearchMetrics.SUCCESSORS);
+                int generated = State.expand(state, gridDimension, null, successors);
+                for(int i = 0; i < generated; i++) buffer[count++] = successors.getState(i);
+                metrics.end(SearchMetrics.SUCCESSORS, t);
+                metrics.generated(generated);
+            }
+        }
+        finally{
+            reader.close();
+        }
+        if(count > 0) runs.add(spill(count, depth, runs.size()));
+        return runs;
+    }
+
+    private File spill(int count, int depth, int run) throws IOException{
+        Arrays.sort(buffer, 0, count);
+        int unique = 0;
+        for(int i = 0; i < count; i++){
+            if(unique == 0 || buffer[unique - 1] != buffer[i]) buffer[unique++] = buffer[i];
+            else metrics.duplicate();
+        }
+        File file = new File(workDirectory, "run-" + depth + "-" + run + ".bin");
+        writeLayer(buffer, unique, file);
+        return file;
+    }
+
+    /*
+    Method to merge the runs into the next layer, dropping the states found in the runs more than once or in the two
+    previous layers (delayed duplicate detection). The runs are deleted once merged. Returns the size of the layer.
+     */
+    private long mergeRuns(List<File> runs, int depth, File next) throws IOException{
+        PriorityQueue<LayerReader> queue = new PriorityQueue<LayerReader>(Math.max(runs.size(), 1),
+                (a, b) -> Long.compare(a.peek(), b.peek()));
+        LayerReader current = new LayerReader(layers.get(depth));
+        LayerReader previous = depth > 0 ? new LayerReader(layers.get(depth - 1)) : null;
+        LayerWriter writer = new LayerWriter(next);
+        long size = 0;
+        try{
+            for(File run : runs){
+                LayerReader reader = new LayerReader(run);
+                if(reader.hasNext()) queue.add(reader);
+                else reader.close();
+            }
+
+            long last = State.NO_MOVE;
+            while(!queue.isEmpty()){
+                LayerReader reader = queue.poll();
+                long state = reader.next();
+                if(reader.hasNext()) queue.add(reader);
+                else reader.close();
+
+                if(state == last || current.skipTo(state) || (previous != null && previous.skipTo(state))){
+                    metrics.duplicate();
+                    continue;
+                }
+                last = state;
+                writer.write(state);
+                size++;
+            }
+        }
+        finally{
+            for(LayerReader reader : queue) reader.close();
+            current.close();
+            if(previous != null) previous.close();
+            writer.close();
+            for(File run : runs) run.delete();
+        }
+        layers.add(next);
+        diskBytes += size * 8;
+        return size;
+    }
+
+    private boolean isGoal(long state){
+        long t = metrics.begin(SearchMetrics.GOAL_TEST);
+        boolean found = state == goal;
+        metrics.end(SearchMetrics.GOAL_TEST, t);
+        return found;
+    }
+
+    private boolean isGoal(File layer, long size) throws IOException{     //goal test of a whole layer, one binary search
+        long t = metrics.begin(SearchMetrics.GOAL_TEST);
+        boolean found = contains(layer, size, goal);
+        metrics.end(SearchMetrics.GOAL_TEST, t);
+        return found;
+    }
+
+    /*
+    Method to rebuild the moves from the start to the goal found in the layer at the given depth: from the goal
+    backwards, the state before is the neighbour of the current one found in the previous layer's file
+     */
+    private Move[] rebuild(int depth) throws IOException{
+        Move[] moves = new Move[depth];
+        long state = goal;
+        for(int d = depth - 1; d >= 0; d--){
+            Move found = null;
+            int count = State.expand(state, gridDimension, null, successors);
+            for(int i = 0; i < count; i++){
+                if(contains(layers.get(d), layerSizes.get(d), successors.getState(i))){
+                    found = successors.getMove(i).opposite();     //undoing the move leads from the predecessor to state
+                    state = successors.getState(i);
+                    break;
+                }
+            }
+            if(found == null){
+                throw new IOException("Error: layer " + d + " holds no predecessor of the solution path");
+            }
+            moves[d] = found;
+        }
+        return moves;
+    }
+
+    /*
+    Binary search of a packed state in a sorted layer file of the given number of states
+     */
+    private static boolean contains(File file, long size, long key) throws IOException{
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try{
+            FileChannel channel = raf.getChannel();
+            ByteBuffer value = ByteBuffer.allocate(8);
+            long low = 0, high = size - 1;
+            while(low <= high){
+                long middle = (low + high) >>> 1;
+                value.clear();
+                while(value.hasRemaining() && channel.read(value, middle * 8 + value.position()) >= 0){}
+                long state = value.getLong(0);
+                if(state < key) low = middle + 1;
+                else if(state > key) high = middle - 1;
+                else return true;
+            }
+            return false;
+        }
+        finally{
+            raf.close();
+        }
+    }
+
+    private void writeLayer(long[] states, int count, File file) throws IOException{
+        LayerWriter writer = new LayerWriter(file);
+        try{
+            for(int i = 0; i < count; i++) writer.write(states[i]);
+        }
+        finally{
+            writer.close();
+        }
+        diskBytes += (long) count * 8;
+    }
+
+    private File layerFile(int depth){
+        return new File(workDirectory, "layer-" + depth + ".bin");
+    }
+
+    private long heapBytes(int depth){          //buffer plus the read buffers open while merging (runs estimated)
+        long runs = layerSizes.get(depth) * SuccessorBuffer.CAPACITY / buffer.length + 1;
+        return (long) buffer.length * 8 + (runs + 3) * IO_BYTES;
+    }
+
+    /*
+    Method returning the solution found by solve() as a chain of Nodes from the passed start node
+     */
+    public Node getSolution(Node start){
+        return Node.replay(start, solution);
+    }
+
+    public long getDiskBytes(){
+        return diskBytes;
+    }
+
+    public long getHeapBytes(){
+        return buffer.length * 8L;
+    }
+
+    /*
+    Sequential reader of a file of packed states, with one state of look-ahead
+     */
+    private static class LayerReader {
+        private final RandomAccessFile raf;
+        private final FileChannel channel;
+        private final ByteBuffer bytes = ByteBuffer.allocate(IO_BYTES);
+        private boolean hasNext;
+        private long next;
+
+        LayerReader(File file) throws IOException{
+            raf = new RandomAccessFile(file, "r");
+            channel = raf.getChannel();
+            bytes.flip();
+            advance();
+        }
+
+        boolean hasNext(){
+            return hasNext;
+        }
+
+        long peek(){
+            return next;
+        }
+
+        long next() throws IOException{
+            long value = next;
+            advance();
+            return value;
+        }
+
+        /*
+        Method to skip the states smaller than the given one, returns true if the state is in the file. Only to be
+        called with increasing states.
+         */
+        boolean skipTo(long state) throws IOException{
+            while(hasNext && next < state) advance();
+            return hasNext && next == state;
+        }
+
+        private void advance() throws IOException{
+            if(bytes.remaining() < 8){
+                bytes.compact();
+                while(bytes.position() < 8 && channel.read(bytes) >= 0){}
+                bytes.flip();
+                if(bytes.remaining() < 8){
+                    hasNext = false;
+                    return;
+                }
+            }
+            next = bytes.getLong();
+            hasNext = true;
+        }
+
+        void close() throws IOException{
+            raf.close();
+        }
+    }
+
+    /*
+    Buffered writer of a file of packed states
+     */
+    private static class LayerWriter {
+        private final RandomAccessFile raf;
+        private final FileChannel channel;
+        private final ByteBuffer bytes = ByteBuffer.allocate(IO_BYTES);
+
+        LayerWriter(File file) throws IOException{
+            raf = new RandomAccessFile(file, "rw");
+            raf.setLength(0);
+            channel = raf.getChannel();
+        }
+
+        void write(long state) throws IOException{
+            if(!bytes.hasRemaining()) flush();
+            bytes.putLong(state);
+        }
+
+        private void flush() throws IOException{
+            bytes.flip();
+            while(bytes.hasRemaining()) channel.write(bytes);
+            bytes.clear();
+        }
+
+        void close() throws IOException{
+            flush();
+            raf.close();
+        }
+    }
+}
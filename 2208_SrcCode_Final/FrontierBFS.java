@@ -0,0 +1,184 @@
+/**
+ * AUTHOR: Roberto J Gregoratti - rjg1g12@ecs.soton.ac.uk , University of Southampton ECS
+ * PROJECT: COMP2208 Search Methods assignment (BlocksWorld coursework)
+ * VERSION: v1.0
+ * DATE: Jan 2014
+ * CLASS: FrontierBFS (breadth-first frontier search engine, used by BlocksWorld.frontierBreadthFirst())
+ */
+
+/*
+This class performs a breadth-first frontier search (Korf, Zhang, Thayer and Hohwald): only the layer being expanded
+and the next one are kept, each state with the set of operators (moves) that lead to a neighbour already generated,
+and no closed list at all. As every move is undone by its opposite, when a state is generated by a move its
+opposite is marked on it, so the parent is never generated again from it; an edge between two states of the same
+layer is marked in the same way on the state at its end, which will not follow it back. A layer is thus never
+regenerated from the next one, and the memory is that of the two widest consecutive layers instead of all the
+states visited.
+Without parents, the solution is rebuilt by divide and conquer: knowing its depth D, a frontier search of D/2 layers
+from the start gives the relay layer, and one of D - D/2 layers back from the goal gives the states at that
+distance from the goal; a state found in both is in the middle of a shortest path. The two halves are solved in the
+same way, down to single moves, so rebuilding costs about log2(D) more searches, each smaller than the first.
+The layers are LongIntHashMaps from packed state to its bits of used moves (1 << Move ordinal).
+ */
+
+public class FrontierBFS {
+
+    private static final long NO_TARGET = State.NO_MOVE;       //searches for a fixed number of layers
+
+    private final int gridDimension;
+    private final long goal;
+    private final SuccessorBuffer successors = new SuccessorBuffer();
+
+    private LongIntHashMap frontier;        //last layer of the last search()
+    private Move[] solution;
+    private SearchLimits limits = SearchLimits.NONE;
+    private long startTime;
+    private SearchMetrics metrics;
+    private long visited;                   //states generated by the first search, for the results
+    private long peakBytes;                 //largest memory held by the layers of a search
+    private int searches;
+
+    public FrontierBFS(State finish){
+        this.gridDimension = finish.gridDimension;
+        this.goal = finish.getPacked();
+    }
+
+    /*
+    Method to run the search from the passed configuration. Returns the number of moves of the solution (the moves can
+    then be read with getSolution()), or -1 if the goal cannot be reached. The limits are checked with the layers'
+    states and bytes at every layer.
+     */
+    public int solve(State start, SearchLimits limits, long startTime, SearchMetrics metrics) throws SearchAbortedException{
+        this.limits = limits;
+        this.startTime = startTime;
+        this.metrics = metrics;
+
+        int depth = search(start.getPacked(), goal, Integer.MAX_VALUE);
+        visited = metrics.getGenerated() - metrics.getDuplicates() + 1;
+        if(depth < 0) return -1;
+
+        solution = new Move[depth];
+        rebuild(start.getPacked(), goal, depth, 0);
+        return depth;
+    }
+
+    /*
+    Method to find the moves of a shortest path of the given length between two states, and to write them in
+    solution from the given index
+     */
+    private void rebuild(long from, long to, int depth, int index) throws SearchAbortedException{
+        if(depth == 0) return;
+        if(depth == 1){
+            int count = State.expand(from, gridDimension, null, successors);
+            for(int i = 0; i < count; i++){
+                if(successors.getState(i) == to){
+                    solution[index] = successors.getMove(i);
+                    return;
+                }
+            }
+            throw new IllegalStateException("Error: frontier search lost the path at depth " + index);
+        }
+
+        int half = depth / 2;
+        search(from, NO_TARGET, half);
+        LongIntHashMap relay = frontier;            //states at distance half from the start of this part
+        search(to, NO_TARGET, depth - half);        //states at distance depth - half from its end
+
+        long middle = State.NO_MOVE;
+        LongIntHashMap small = relay.size() <= frontier.size() ? relay : frontier;
+        LongIntHashMap large = small == relay ? frontier : relay;
+        for(int slot = 0; slot < small.capacity() && middle == State.NO_MOVE; slot++){
+            long state = small.keyAt(slot);
+            if(state != LongHashSet.EMPTY && large.containsKey(state)) middle = state;
+        }
+        if(middle == State.NO_MOVE){
+            throw new IllegalStateException("Error: frontier search found no relay state at depth " + (index + half));
+        }
+        relay = null;
+        frontier = null;
+
+        rebuild(from, middle, half, index);
+        rebuild(middle, to, depth - half, index + half);
+    }
+
+    /*
+    Frontier search from the given state, layer by layer, until the target is generated (returns its depth) or
+    maxDepth layers have been built (returns -1, the last layer is left in frontier). Also returns -1 if the
+    reachable space is exhausted first, with an empty frontier.
+     */
+    private int search(long from, long target, int maxDepth) throws SearchAbortedException{
+        searches++;
+        LongIntHashMap current = new LongIntHashMap(16);
+        current.put(from, 0);
+        if(from == target) return 0;
+
+        for(int depth = 0; depth < maxDepth && current.size() > 0; depth++){
+            LongIntHashMap next = new LongIntHashMap(current.size() * 2);
+            for(int slot = 0; slot < current.capacity(); slot++){
+                long state = current.keyAt(slot);
+                if(state == LongHashSet.EMPTY) continue;
+                int used = current.valueAt(slot);           //read now, marks of this layer's expansions included
+
+                metrics.expanded();
+                long t = metrics.begin(SearchMetrics.SUCCESSORS);
+                int count = State.expand(state, gridDimension, null, successors);
+                metrics.end(SearchMetrics.SUCCESSORS, t);
+                for(int i = 0; i < count; i++){
+                    Move move = successors.getMove(i);
+                    if((used & (1 << move.ordinal())) != 0) continue;      //neighbour already generated
+                    long neighbour = successors.getState(i);
+                    int back = 1 << move.opposite().ordinal();
+                    metrics.generated(1);
+
+                    if(isTarget(neighbour, target)) return depth + 1;
+
+                    int same = current.get(neighbour, -1);
+                    if(same >= 0){                                  //edge within the layer, not to be followed back
+                        current.put(neighbour, same | back);
+                        metrics.duplicate();
+                        continue;
+                    }
+                    int old = next.put(neighbour, back, -1);
+                    if(old >= 0){                                   //reached from another state of this layer
+                        next.put(neighbour, old | back);
+                        metrics.duplicate();
+                    }
+                }
+            }
+
+            long bytes = current.bytes() + next.bytes() + (frontier == null ? 0 : frontier.bytes());
+            peakBytes = Math.max(peakBytes, bytes);
+            metrics.open(next.size());
+            limits.check(current.size() + next.size(), bytes, startTime);
+            current = next;
+        }
+        frontier = current;
+        return -1;
+    }
+
+    private boolean isTarget(long state, long target){
+        long t = metrics.begin(SearchMetrics.GOAL_TEST);
+        boolean found = state == target;
+        metrics.end(SearchMetrics.GOAL_TEST, t);
+        return found;
+    }
+
+    /*
+    Method returning the solution found by solve() as a chain of Nodes from the passed start node
+     */
+    public Node getSolution(Node start){
+        return Node.replay(start, solution);
+    }
+
+    public long getVisited(){               //distinct states generated by the search for the goal
+        return visited;
+    }
+
+    public long getPeakBytes(){
+        return peakBytes;
+    }
+
+    public int getSearches(){               //frontier searches run, the first one and the ones rebuilding the path
+        return searches;
+    }
+}
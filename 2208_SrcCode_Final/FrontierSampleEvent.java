@@ -0,0 +1,42 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * AUTHOR: Roberto J Gregoratti - rjg1g12@ecs.soton.ac.uk , University of Southampton ECS
+ * PROJECT: COMP2208 Search Methods assignment (BlocksWorld coursework)
+ * VERSION: v1.0
+ * DATE: Jan 2014
+ * CLASS: FrontierSampleEvent (Java Flight Recorder event, size of a search's frontier)
+ */
+
+/*
+This class is the JFR event sampling the open list (frontier) of a search every SearchMetrics.FRONTIER_SAMPLE_INTERVAL
+updates of its size, with the counts so far: plotted over time, it shows a search's growth before it ends or stalls.
+ */
+
+@Name("blocksworld.FrontierSample")
+@Label("Frontier Sample")
+@Category("BlocksWorld")
+@Description("Size of the open list of a search, sampled")
+public class FrontierSampleEvent extends jdk.jfr.Event {
+
+    @Label("Search")
+    String search;
+
+    @Label("Grid Dimension")
+    int gridDimension;
+
+    @Label("Open")
+    int open;
+
+    @Label("Peak Closed")
+    int peakClosed;
+
+    @Label("Expanded")
+    long expanded;
+
+    @Label("Generated")
+    long generated;
+}
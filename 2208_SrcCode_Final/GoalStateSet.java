@@ -0,0 +1,68 @@
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * AUTHOR: Roberto J Gregoratti - rjg1g12@ecs.soton.ac.uk , University of Southampton ECS
+ * PROJECT: COMP2208 Search Methods assignment (BlocksWorld coursework)
+ * VERSION: v1.0
+ * DATE: Jan 2014
+ * CLASS: GoalStateSet (goal test matching any of a set of states)
+ */
+
+/*
+This class is a GoalTest matching any of the configurations it was given (exactly, agent included), held in a
+LongHashSet so that the test is one lookup whatever the number of goals. The estimate of the informed searches has
+to be admissible for every goal of the set: manhattan() is the smallest Manhattan estimate over the set.
+ */
+
+public class GoalStateSet implements GoalTest {
+
+    private final LongHashSet goals;
+    private final long[] states;
+    private final int gridDimension;
+
+    public GoalStateSet(Collection<State> goals){
+        if(goals.isEmpty()) throw new IllegalArgumentException("Error: a goal set needs at least one state");
+        this.goals = new LongHashSet(goals.size());
+        this.gridDimension = goals.iterator().next().gridDimension;
+        long[] added = new long[goals.size()];
+        int count = 0;
+        for(State goal : goals){
+            if(goal.gridDimension != gridDimension){
+                throw new IllegalArgumentException("Error: the goals of a set have to be on the same grid size");
+            }
+            if(this.goals.add(goal.getPacked())) added[count++] = goal.getPacked();
+        }
+        this.states = Arrays.copyOf(added, count);
+    }
+
+    /*
+    Method returning the Manhattan estimate (A, B and C, see State.manhattan()) to the nearest goal of the set, so that
+    it never overestimates the distance to any of them
+     */
+    public Heuristic manhattan(){
+        return new Heuristic(){
+            public int estimate(long packed){
+                int best = Integer.MAX_VALUE;
+                for(long goal : states) best = Math.min(best, State.manhattan(packed, goal, gridDimension));
+                return best;
+            }
+
+            public String getName(){
+                return "MDMIN";
+            }
+        };
+    }
+
+    public boolean isGoal(long packed){
+        return goals.contains(packed);
+    }
+
+    public int size(){
+        return goals.size();
+    }
+
+    public String getName(){
+        return "SET";
+    }
+}
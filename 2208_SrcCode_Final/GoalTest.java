@@ -0,0 +1,21 @@
+/**
+ * AUTHOR: Roberto J Gregoratti - rjg1g12@ecs.soton.ac.uk , University of Southampton ECS
+ * PROJECT: COMP2208 Search Methods assignment (BlocksWorld coursework)
+ * VERSION: v1.0
+ * DATE: Jan 2014
+ * CLASS: GoalTest (interface for the goal conditions of the uninformed searches)
+ */
+
+/*
+This interface represents the condition ending a search, tested on packed configurations: the finish state exactly
+(ExactGoal, as State.compareTo()), its tiles with the agent anywhere (TilesGoal, as State.equalToGoal()), or any of
+a set of states (GoalStateSet). BlocksWorld's BFS, DFS, IDS, A*, IDA* and steppers take one; the other searches
+reach the finish state exactly.
+ */
+
+public interface GoalTest {
+
+    boolean isGoal(long packed);
+
+    String getName();           //short name used in the results (no commas, it goes in the CSV)
+}
@@ -0,0 +1,316 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * AUTHOR: Roberto J Gregoratti - rjg1g12@ecs.soton.ac.uk , University of Southampton ECS
+ * PROJECT: COMP2208 Search Methods assignment (BlocksWorld coursework)
+ * VERSION: v1.0
+ * DATE: Jan 2014
+ * CLASS: HDAStar (hash-distributed parallel A* engine, used by BlocksWorld.parallelHeuristic())
+ */
+
+/*
+This class performs a Hash Distributed A* (HDA*, Kishimoto, Fukunaga and Botea) on a number of threads. Every state
+is owned by one worker, chosen by hashing its packed configuration, and only its owner stores and expands it: each
+worker has its own NodeArena, BucketQueue open list and table of the best depth reached per state, none of them
+shared, so there are no locks. Successors owned by another worker are appended to a batch for that worker, and the
+batches are sent through a lock-free queue (one inbox per worker, written by the others, read by the owner).
+The workers do not expand in global f order, so a state may be reached again by a shorter path after it has been
+expanded: it is then reopened. The first goal polled gives an incumbent solution; nodes whose f-value is not below
+its depth are pruned, and the search ends when every worker is idle (no node left, inbox empty) and no batch is in
+flight, at which point no shorter path can exist and the incumbent is optimal (with a consistent heuristic).
+Nodes refer to their parent across workers with an int reference (index in the owner's arena times the number of
+workers, plus the owner), which is followed back from the goal to rebuild the path.
+ */
+
+public class HDAStar {
+
+    static final int BATCH = 256;               //successors sent to a worker at once
+    private static final Move[] MOVES = Move.values();
+    private static final int CHECK_INTERVAL = 1024;     //expansions between two checks of the limits
+    private static final long IDLE_NANOS = 20000;       //pause of an idle worker between two looks at its inbox
+
+    private final int gridDimension;
+    private final long goal;
+    private final Heuristic estimator;
+    private final int threads;
+    private final Worker[] workers;
+
+    private final AtomicInteger idle = new AtomicInteger();         //workers with nothing to do
+    private final AtomicLong epoch = new AtomicLong();              //incremented whenever a worker stops being idle
+    private final AtomicLong inFlight = new AtomicLong();           //successors sent and not received yet
+    private final AtomicLong stored = new AtomicLong();             //nodes of all the workers, for the limits
+    private final AtomicLong storedBytes = new AtomicLong();
+    private final AtomicReference<Exception> failure = new AtomicReference<Exception>();
+    private volatile boolean done;
+
+    private volatile int incumbent = Integer.MAX_VALUE;     //depth of the best solution found so far
+    private int incumbentRef = NodeArena.NONE;              //its node, as a parent reference
+
+    private SearchLimits limits = SearchLimits.NONE;
+    private long startTime;
+    private Move[] solution;
+
+    public HDAStar(State finish, int threads, Heuristic estimator){
+        if(threads < 1){
+            throw new IllegalArgumentException("Error: HDA* needs at least one thread");
+        }
+        this.gridDimension = finish.gridDimension;
+        this.goal = finish.getPacked();
+        this.estimator = estimator;
+        this.threads = threads;
+        this.workers = new Worker[threads];
+    }
+
+    /*
+    Method to run the search from the passed configuration with the given expected number of states per worker.
+    Returns the number of moves of the solution (the moves can then be read with getSolution()), or -1 if the goal
+    cannot be reached. The limits are checked with the nodes and bytes of all the workers; the metrics are filled
+    in once the workers have stopped.
+     */
+    public int solve(State start, int expectedSize, SearchLimits limits, long startTime, SearchMetrics metrics) throws Exception{
+        this.limits = limits;
+        this.startTime = startTime;
+        for(int i = 0; i < threads; i++) workers[i] = new Worker(i, expectedSize);
+
+        long root = start.getPacked();
+        workers[owner(root)].receive(root, NodeArena.NONE, null, 0);
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try{
+            List<Future<?>> running = new ArrayList<Future<?>>();
+            for(Worker worker : workers) running.add(pool.submit(worker));
+            for(Future<?> future : running) future.get();
+        }
+        finally{
+            pool.shutdownNow();
+        }
+
+        long expanded = 0, generated = 0, duplicates = 0, bytes = 0;
+        int nodes = 0;
+        for(Worker worker : workers){
+            expanded += worker.expanded;
+            generated += worker.generated;
+            duplicates += worker.duplicates;
+            nodes += worker.arena.size();
+            bytes += worker.bytes();
+        }
+        metrics.addCounts(expanded, generated, duplicates);
+        metrics.closed(nodes);
+        metrics.setEstimatedBytes(bytes);
+
+        if(failure.get() != null){
+            Exception e = failure.get();
+            if(e instanceof SearchAbortedException){
+                metrics.finish(null, nodes, 0, System.currentTimeMillis() - startTime);
+                ((SearchAbortedException) e).setMetrics(metrics);
+            }
+            throw e;
+        }
+        if(incumbentRef == NodeArena.NONE) return -1;       //whole space explored, no solution
+
+        solution = rebuild(incumbentRef);
+        return solution.length;
+    }
+
+    /*
+    Method to rebuild the moves to the node of the given reference, following the parent references back through the
+    arenas of the workers (all stopped by now)
+     */
+    private Move[] rebuild(int ref){
+        Worker owner = workers[ref % threads];
+        int id = ref / threads;
+        Move[] moves = new Move[owner.arena.getDepth(id)];
+        for(int depth = moves.length - 1; depth >= 0; depth--){
+            moves[depth] = owner.arena.getMove(id);
+            ref = owner.arena.getParent(id);
+            owner = workers[ref % threads];
+            id = ref / threads;
+        }
+        return moves;
+    }
+
+    /*
+    Method returning the solution found by solve() as a chain of Nodes from the passed start node
+     */
+    public Node getSolution(Node start){
+        return Node.replay(start, solution);
+    }
+
+    public int getThreads(){
+        return threads;
+    }
+
+    public long getProbes(){
+        long probes = 0;
+        for(Worker worker : workers) probes += worker.best.getProbes();
+        return probes;
+    }
+
+    int owner(long packed){
+        return (LongHashSet.hash(packed) & 0x7FFFFFFF) % threads;
+    }
+
+    /*
+    Method setting the incumbent when a worker polls a goal node shallower than it
+     */
+    private synchronized void offerSolution(int depth, int ref){
+        if(depth < incumbent){
+            incumbent = depth;
+            incumbentRef = ref;
+        }
+    }
+
+    /*
+    Termination check, made by idle workers: all the workers idle and no successor in flight, with no worker becoming
+    active in between (the epoch has not changed). A worker leaves the idle count before incrementing the epoch and
+    receives its batches before they leave the in-flight count, so a batch received during the check is always seen.
+     */
+    private boolean terminated(){
+        long before = epoch.get();
+        return idle.get() == threads && inFlight.get() == 0 && epoch.get() == before;
+    }
+
+    /*
+    Search thread owning the states that hash to its index
+     */
+    private final class Worker implements Runnable {
+        private final int index;
+        private final NodeArena arena;
+        private final BucketQueue queue;
+        private final LongIntHashMap best;          //packed state -> smallest depth reached (queued or expanded)
+        private final ConcurrentLinkedQueue<long[]> inbox = new ConcurrentLinkedQueue<long[]>();
+        private final long[][] outgoing;            //batch being filled for every worker: state, then parent/depth/move
+        private final int[] outgoingSize;
+        private final SuccessorBuffer successors = new SuccessorBuffer();
+        private boolean isIdle;
+        private long reportedStates, reportedBytes;
+        long expanded, generated, duplicates;
+
+        Worker(int index, int expectedSize){
+            this.index = index;
+            this.arena = new NodeArena(expectedSize);
+            this.queue = new BucketQueue(BucketQueue.TieBreak.HIGH_DEPTH, expectedSize, arena);
+            this.best = new LongIntHashMap(expectedSize);
+            this.outgoing = new long[threads][BATCH * 2];
+            this.outgoingSize = new int[threads];
+        }
+
+        public void run(){
+            try{
+                while(!done){
+                    long[] batch;
+                    while((batch = inbox.poll()) != null){
+                        if(isIdle){
+                            isIdle = false;
+                            idle.decrementAndGet();
+                            epoch.incrementAndGet();
+                        }
+                        for(int i = 0; i < batch.length; i += 2){
+                            long word = batch[i + 1];
+                            int depth = (int) (word & 0xFFFFFFFFL) >>> 2;
+                            receive(batch[i], (int) (word >> 32), MOVES[(int) (word & 3)], depth);
+                        }
+                        inFlight.addAndGet(-batch.length / 2);
+                    }
+
+                    int node = queue.poll();
+                    if(node != NodeArena.NONE){
+                        if(arena.getF(node) < incumbent) expand(node);      //others are pruned by the incumbent
+                        continue;
+                    }
+
+                    for(int owner = 0; owner < threads; owner++) flush(owner);
+                    if(!isIdle){
+                        isIdle = true;
+                        idle.incrementAndGet();
+                    }
+                    if(terminated()) done = true;
+                    else LockSupport.parkNanos(IDLE_NANOS);        //wait for batches without spinning
+                }
+            }
+            catch(Exception e){
+                failure.compareAndSet(null, e);
+                done = true;
+            }
+        }
+
+        /*
+        Method to add a node for an owned state, unless the state has already been reached with a smaller or equal
+        depth or cannot lead to a solution shorter than the incumbent
+         */
+        void receive(long state, int parentRef, Move move, int depth){
+            if(best.get(state, Integer.MAX_VALUE) <= depth){
+                duplicates++;
+                return;
+            }
+            int h = estimator.estimate(state);
+            if(depth + h >= incumbent) return;
+            best.put(state, depth);
+            queue.reopen(arena.addLinked(state, parentRef, move, depth, h));
+        }
+
+        private void expand(int node) throws SearchAbortedException{
+            long state = arena.getState(node);
+            int depth = arena.getDepth(node);
+            int ref = node * threads + index;
+            if(state == goal){
+                offerSolution(depth, ref);
+                return;
+            }
+
+            if(++expanded % CHECK_INTERVAL == 0) checkLimits();
+            int count = State.expand(state, gridDimension, null, successors);
+            generated += count;
+            for(int i = 0; i < count; i++){
+                long next = successors.getState(i);
+                int owner = owner(next);
+                if(owner == index) receive(next, ref, successors.getMove(i), depth + 1);
+                else send(owner, next, ref, successors.getMove(i), depth + 1);
+            }
+        }
+
+        private void send(int owner, long state, int parentRef, Move move, int depth){
+            long[] batch = outgoing[owner];
+            int size = outgoingSize[owner];
+            batch[size] = state;
+            batch[size + 1] = ((long) parentRef << 32) | ((long) depth << 2) | move.ordinal();
+            outgoingSize[owner] = size + 2;
+            if(size + 2 == batch.length) flush(owner);
+        }
+
+        private void flush(int owner){
+            int size = outgoingSize[owner];
+            if(size == 0) return;
+            inFlight.addAndGet(size / 2);               //counted before it can be received
+            workers[owner].inbox.add(Arrays.copyOf(outgoing[owner], size));
+            outgoingSize[owner] = 0;
+        }
+
+        /*
+        Method adding this worker's growth since the last check to the shared totals, then checking the limits
+         */
+        private void checkLimits() throws SearchAbortedException{
+            long states = arena.size();
+            long bytes = bytes();
+            long totalStates = stored.addAndGet(states - reportedStates);
+            long totalBytes = storedBytes.addAndGet(bytes - reportedBytes);
+            reportedStates = states;
+            reportedBytes = bytes;
+            limits.check(totalStates, totalBytes, startTime);
+        }
+
+        long bytes(){
+            return arena.bytes() + queue.bytes() + best.bytes();
+        }
+    }
+}
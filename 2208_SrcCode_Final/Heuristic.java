@@ -0,0 +1,20 @@
+/**
+ * AUTHOR: Roberto J Gregoratti - rjg1g12@ecs.soton.ac.uk , University of Southampton ECS
+ * PROJECT: COMP2208 Search Methods assignment (BlocksWorld coursework)
+ * VERSION: v1.0
+ * DATE: Jan 2014
+ * CLASS: Heuristic (interface for the cost estimates used by the informed searches)
+ */
+
+/*
+This interface represents an estimate of the number of moves from a packed configuration to a fixed goal (the goal
+and grid size are given to the implementing object when created). Estimates used by A* and IDA* must never
+overestimate; all the implementations in the project are also consistent (a move changes them by at most one).
+ */
+
+public interface Heuristic {
+
+    int estimate(long packed);
+
+    String getName();           //short name used in the results (no commas, it goes in the CSV)
+}
@@ -0,0 +1,206 @@
+import java.util.Arrays;
+
+/**
+ * AUTHOR: Roberto J Gregoratti - rjg1g12@ecs.soton.ac.uk , University of Southampton ECS
+ * PROJECT: COMP2208 Search Methods assignment (BlocksWorld coursework)
+ * VERSION: v1.0
+ * DATE: Jan 2014
+ * CLASS: IDAStar (iterative deepening A* engine, used by BlocksWorld.idaStar())
+ */
+
+/*
+This class performs an Iterative Deepening A* (IDA*) search, adapted from Korf's paper and Russell-Norvig.
+Each iteration is a depth-first descent bounded by an f-value threshold (depth plus the estimate of a Heuristic, by
+default the Manhattan one of Node.getCostEstimate()), the next threshold being the smallest f-value that exceeded
+the current one.
+The descent works on a single packed configuration: moves are applied and undone in place (every move is undone by
+its opposite), successors are generated into one SuccessorBuffer per depth and the path is kept in a byte array, so
+no Node or State is created while searching and memory does
+not grow with the explored space. An optional transposition table (bounded, cleared at every iteration) prunes
+states already reached in the same iteration with a smaller or equal depth.
+ */
+
+public class IDAStar {
+
+    private static final Move[] MOVES = Move.values();
+    private static final int FOUND = -1;            //returned by search() when the goal has been reached
+
+    private final int gridDimension;
+    private final GoalTest goal;
+    private final Heuristic estimator;
+    private final int maxTableEntries;      //bound on the transposition table (0 = no table)
+    private LongIntHashMap table;           //packed state -> depth at which it was reached in this iteration
+
+    private long state;                     //configuration being explored, modified in place
+    private byte[] path = new byte[64];     //moves (ordinals) taken from the start to the current configuration
+    private SuccessorBuffer[] buffers = new SuccessorBuffer[64];     //successors of the configuration at each depth
+    private int nextThreshold;              //smallest f-value found above the current threshold
+    private int solutionDepth;              //number of moves in path once the goal is found
+
+    private long generated;                 //statistics: configurations generated over all iterations
+    private int iterations;
+
+    private SearchLimits limits = SearchLimits.NONE;
+    private long startTime;
+    private SearchMetrics metrics;
+
+    public IDAStar(State finish, int maxTableEntries){
+        this(finish, maxTableEntries, new ManhattanHeuristic(finish));
+    }
+
+    public IDAStar(State finish, int maxTableEntries, Heuristic estimator){
+        this(finish, maxTableEntries, estimator, new ExactGoal(finish));
+    }
+
+    /*
+    Constructor for a search ending at the states passing the GoalTest, the estimator has to be admissible for all of
+    them (see BlocksWorld.heuristic())
+     */
+    public IDAStar(State finish, int maxTableEntries, Heuristic estimator, GoalTest goal){
+        this.gridDimension = finish.gridDimension;
+        this.goal = goal;
+        this.estimator = estimator;
+        this.maxTableEntries = maxTableEntries;
+        if(maxTableEntries > 0){
+            table = new LongIntHashMap(maxTableEntries, 0.75f);
+        }
+    }
+
+    /*
+    Method to run the search from the passed configuration. Returns the number of moves of the solution (the moves can
+    then be read with getPath()), or -1 if the goal cannot be reached.
+     */
+    public int solve(State start) throws SearchAbortedException{
+        return solve(start, SearchLimits.NONE, System.currentTimeMillis(), new SearchMetrics("IDA*", gridDimension));
+    }
+
+    /*
+    As above, checking the limits regularly (the only states stored are the ones of the transposition table) and
+    filling in the passed metrics
+     */
+    public int solve(State start, SearchLimits limits, long startTime, SearchMetrics metrics) throws SearchAbortedException{
+        this.limits = limits;
+        this.metrics = metrics;
+        this.startTime = startTime;
+        state = start.getPacked();
+        int threshold = estimate();
+
+        while(true){
+            iterations++;
+            nextThreshold = Integer.MAX_VALUE;
+            if(table != null) table.clear();
+            SearchIterationEvent event = new SearchIterationEvent();
+            event.begin();
+
+            int found = search(0, threshold, -1);
+            if(table != null){
+                metrics.closed(table.size());
+                metrics.setEstimatedBytes(table.bytes() + path.length);
+            }
+            event.end();
+            if(event.shouldCommit()){
+                event.search = metrics.getSearch();
+                event.gridDimension = gridDimension;
+                event.bound = threshold;
+                event.stored = table == null ? 0 : table.size();
+                event.expanded = metrics.getExpanded();
+                event.solved = found == FOUND;
+                event.commit();
+            }
+            if(found == FOUND) return solutionDepth;
+            if(nextThreshold == Integer.MAX_VALUE) return -1;       //whole space explored, no solution
+
+            threshold = nextThreshold;
+        }
+    }
+
+    /*
+    Depth-first descent from the current configuration at the given depth. lastMove is the ordinal of the move that
+    led here (-1 at the root), its opposite is not tried as it would just go back to the parent.
+     */
+    private int search(int depth, int threshold, int lastMove) throws SearchAbortedException{
+
+        int f = depth + estimate();
+        if(f > threshold){
+            if(f < nextThreshold) nextThreshold = f;
+            return 0;
+        }
+
+        long t = metrics.begin(SearchMetrics.GOAL_TEST);
+        boolean goalReached = goal.isGoal(state);
+        metrics.end(SearchMetrics.GOAL_TEST, t);
+        if(goalReached){
+            solutionDepth = depth;
+            return FOUND;
+        }
+
+        if(table != null){
+            int seen = table.get(state, Integer.MAX_VALUE);
+            if(seen <= depth){                      //already explored in this iteration with at least as much budget
+                metrics.duplicate();
+                return 0;
+            }
+            if(seen != Integer.MAX_VALUE || table.size() < maxTableEntries) table.put(state, depth);
+        }
+
+        if(depth == path.length){
+            path = Arrays.copyOf(path, path.length * 2);
+            buffers = Arrays.copyOf(buffers, buffers.length * 2);
+        }
+        if(buffers[depth] == null) buffers[depth] = new SuccessorBuffer();
+        SuccessorBuffer successors = buffers[depth];
+        metrics.expanded();
+        metrics.open(depth + 1);            //the open list of a depth-first search is its current path
+
+        t = metrics.begin(SearchMetrics.SUCCESSORS);
+        int count = State.expand(state, gridDimension, lastMove < 0 ? null : MOVES[lastMove].opposite(), MOVES, successors);
+        metrics.end(SearchMetrics.SUCCESSORS, t);
+        metrics.generated(count);
+
+        for(int i = 0; i < count; i++){
+            Move move = successors.getMove(i);
+            long next = successors.getState(i);
+            if((++generated & 0xFFF) == 0){
+                if(table == null) limits.check(0, path.length, startTime);
+                else limits.check(table.size(), table.bytes() + path.length, startTime);
+            }
+            long previous = state;
+            state = next;                           //apply the move in place
+            path[depth] = (byte) move.ordinal();
+
+            if(search(depth + 1, threshold, move.ordinal()) == FOUND) return FOUND;
+
+            state = previous;                       //undo it
+        }
+        return 0;
+    }
+
+    private int estimate(){
+        long t = metrics.begin(SearchMetrics.HEURISTIC);
+        int h = estimator.estimate(state);
+        metrics.end(SearchMetrics.HEURISTIC, t);
+        return h;
+    }
+
+    /*
+    Method to rebuild the solution as a chain of Nodes from the passed start node, so that the usual methods
+    (getDepth(), displaySolution()) can be used on it
+     */
+    public Node getSolution(Node start){
+        Move[] moves = new Move[solutionDepth];
+        for(int i = 0; i < solutionDepth; i++) moves[i] = MOVES[path[i]];
+        return Node.replay(start, moves);
+    }
+
+    public long getGenerated(){
+        return generated;
+    }
+
+    public int getIterations(){
+        return iterations;
+    }
+
+    public long getProbes(){
+        return table == null ? 0 : table.getProbes();
+    }
+}
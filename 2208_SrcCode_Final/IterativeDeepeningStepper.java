@@ -0,0 +1,100 @@
+import java.util.Arrays;
+
+/**
+ * AUTHOR: Roberto J Gregoratti - rjg1g12@ecs.soton.ac.uk , University of Southampton ECS
+ * PROJECT: COMP2208 Search Methods assignment (BlocksWorld coursework)
+ * VERSION: v1.0
+ * DATE: Jan 2014
+ * CLASS: IterativeDeepeningStepper (IDS run a slice at a time, see SearchStepper)
+ */
+
+/*
+This class is BlocksWorld.iterativeDeepening() as a SearchStepper: the depth-limited DFS of performIDS() with its
+stack, arena and map of visited depths kept between slices; when the stack empties, the next iteration starts with
+the limit one deeper. Unlike iterativeDeepening(), it stops with NO_SOLUTION when an iteration has not been cut by
+its limit (the whole reachable space fits under it).
+ */
+
+public class IterativeDeepeningStepper extends SearchStepper {
+
+    private final LongIntHashMap map;
+    private final NodeArena arena;
+    private int[] stack = new int[64];
+    private int top;
+    private int limit;                  //depth limit of the current iteration
+    private boolean cutOff;             //a node of the iteration was not expanded because of the limit
+    private int totalVisited;           //states visited by the finished iterations
+
+    IterativeDeepeningStepper(BlocksWorld world, Node start, GoalTest goal){
+        super(world, start, goal, "IDS-STEP" + BlocksWorld.label(goal));
+        map = new LongIntHashMap(world.expectedStates(start));
+        arena = new NodeArena(world.expectedStates(start));
+        startIteration(1);
+    }
+
+    private void startIteration(int depth){
+        limit = depth;
+        cutOff = false;
+        map.clear();
+        arena.clear();
+        top = 0;
+        stack[top++] = arena.addRoot(start.getState().getPacked(), 0);
+        map.put(start.getState().getPacked(), 0);
+    }
+
+    protected Status advance(){
+        if(top == 0){
+            totalVisited += map.size();
+            metrics.closed(map.size());
+            if(!cutOff) return Status.NO_SOLUTION;
+            startIteration(limit + 1);
+            return Status.RUNNING;
+        }
+
+        int node = stack[--top];
+        long state = arena.getState(node);
+        if(BlocksWorld.isGoal(state, goal, metrics)) return solved(arena.toNode(node, start));
+
+        int nextDepth = arena.getDepth(node) + 1;
+        if(nextDepth > limit){
+            cutOff = true;
+            return Status.RUNNING;
+        }
+        int count = BlocksWorld.expand(state, gridDimension, successors, metrics);
+        for(int i = 0; i < count; i++){
+            long key = successors.getState(i);
+            if(map.get(key, Integer.MAX_VALUE) >= nextDepth){      //not visited, or visited deeper
+                map.put(key, nextDepth);
+                if(top == stack.length) stack = Arrays.copyOf(stack, top * 2);
+                stack[top++] = arena.add(key, node, successors.getMove(i), 0);
+            }
+            else metrics.duplicate();
+        }
+        metrics.open(top);
+        return Status.RUNNING;
+    }
+
+    public synchronized int getLimit(){         //depth limit of the current iteration
+        return limit;
+    }
+
+    protected int storedStates(){
+        return map.size();
+    }
+
+    protected int frontierSize(){
+        return top;
+    }
+
+    protected long bytes(){
+        return map.bytes() + arena.bytes() + stack.length * 4L;
+    }
+
+    protected int visited(){
+        return totalVisited + map.size();
+    }
+
+    protected long probes(){
+        return map.getProbes();
+    }
+}
@@ -0,0 +1,126 @@
+import java.util.Arrays;
+
+/**
+ * AUTHOR: Roberto J Gregoratti - rjg1g12@ecs.soton.ac.uk , University of Southampton ECS
+ * PROJECT: COMP2208 Search Methods assignment (BlocksWorld coursework)
+ * VERSION: v1.0
+ * DATE: Jan 2014
+ * CLASS: LongHashSet (open-addressing set of packed states, used as closed list by the searches)
+ */
+
+/*
+This class is a set of primitive longs (packed states, see State.getPacked()) using open addressing with linear
+probing in a single long[] table. Unlike a HashSet<Node> no object is stored per entry, so a visited state costs
+8 bytes divided by the load factor. The table is pre-sized from an expected number of states and doubles when the
+load factor is exceeded. Every slot inspection is counted as a probe, so callers can report probes/sec.
+The value State.NO_MOVE (-1) is used to mark empty slots and therefore cannot be stored.
+ */
+
+public class LongHashSet implements StateSet {
+
+    public static final float DEFAULT_LOAD_FACTOR = 0.5f;
+    static final long EMPTY = State.NO_MOVE;       //marker for free slots
+
+    private long[] keys;                //the table
+    private int mask;                   //table length - 1 (length is always a power of two)
+    private int size;                   //number of stored keys
+    private int resizeAt;               //size at which the table is doubled
+    private final float loadFactor;
+    private long probes;                //total slots inspected by add/contains
+
+    public LongHashSet(int expectedSize, float loadFactor){
+        if(loadFactor <= 0 || loadFactor >= 1){
+            throw new IllegalArgumentException("Error: the load factor has to be between 0 and 1 (exclusive)");
+        }
+        this.loadFactor = loadFactor;
+        allocate(tableSizeFor(expectedSize, loadFactor));
+    }
+
+    public LongHashSet(int expectedSize){
+        this(expectedSize, DEFAULT_LOAD_FACTOR);
+    }
+
+    /*
+    Method to add a key, returns true if it was not in the set already (like Set.add)
+     */
+    public boolean add(long key){
+        if(key == EMPTY) throw new IllegalArgumentException("Error: " + EMPTY + " cannot be stored in a LongHashSet");
+
+        int slot = slot(key);
+        while(keys[slot] != EMPTY){
+            probes++;
+            if(keys[slot] == key) return false;
+            slot = (slot + 1) & mask;
+        }
+        probes++;
+        keys[slot] = key;
+        if(++size >= resizeAt) rehash(keys.length << 1);
+        return true;
+    }
+
+    public boolean contains(long key){
+        int slot = slot(key);
+        while(keys[slot] != EMPTY){
+            probes++;
+            if(keys[slot] == key) return true;
+            slot = (slot + 1) & mask;
+        }
+        probes++;
+        return false;
+    }
+
+    public int size(){
+        return size;
+    }
+
+    public long getProbes(){
+        return probes;
+    }
+
+    public long bytes(){            //memory held by the table
+        return (long) keys.length * 8;
+    }
+
+    public void clear(){
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+
+    /*
+    Helpers shared with LongIntHashMap: slot computation (the packed cells are small clustered integers, so they are
+    mixed with a multiplicative hash first) and table sizing.
+     */
+    static int hash(long key){
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 29));
+    }
+
+    static int tableSizeFor(int expectedSize, float loadFactor){
+        long needed = (long) Math.ceil(Math.max(expectedSize, 2) / (double) loadFactor) + 1;
+        if(needed > (1 << 30)) return 1 << 30;
+        return Integer.highestOneBit((int) needed - 1) << 1;
+    }
+
+    private int slot(long key){
+        return hash(key) & mask;
+    }
+
+    private void allocate(int capacity){
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        mask = capacity - 1;
+        resizeAt = Math.min(capacity - 1, (int) (capacity * loadFactor));
+    }
+
+    private void rehash(int capacity){
+        long[] old = keys;
+        allocate(capacity);
+        for(long key : old){
+            if(key != EMPTY){
+                int slot = slot(key);
+                while(keys[slot] != EMPTY) slot = (slot + 1) & mask;
+                keys[slot] = key;
+            }
+        }
+    }
+}
@@ -0,0 +1,150 @@
+import java.util.Arrays;
+
+/**
+ * AUTHOR: Roberto J Gregoratti - rjg1g12@ecs.soton.ac.uk , University of Southampton ECS
+ * PROJECT: COMP2208 Search Methods assignment (BlocksWorld coursework)
+ * VERSION: v1.0
+ * DATE: Jan 2014
+ * CLASS: LongIntHashMap (open-addressing map from packed states to ints, eg depths for IDS)
+ */
+
+/*
+This class maps primitive longs (packed states) to ints using open addressing with linear probing over two parallel
+arrays, in the same way as LongHashSet does for sets. It replaces HashMap<Node,Integer> where a value has to be kept
+per visited state (the depth at which IDS reached it), costing 12 bytes per slot instead of a Node, a State and an
+Integer per entry. State.NO_MOVE (-1) marks empty slots and cannot be used as a key.
+ */
+
+public class LongIntHashMap {
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+    private int resizeAt;
+    private final float loadFactor;
+    private long probes;
+
+    public LongIntHashMap(int expectedSize, float loadFactor){
+        if(loadFactor <= 0 || loadFactor >= 1){
+            throw new IllegalArgumentException("Error: the load factor has to be between 0 and 1 (exclusive)");
+        }
+        this.loadFactor = loadFactor;
+        allocate(LongHashSet.tableSizeFor(expectedSize, loadFactor));
+    }
+
+    public LongIntHashMap(int expectedSize){
+        this(expectedSize, LongHashSet.DEFAULT_LOAD_FACTOR);
+    }
+
+    /*
+    Method to associate value to key, replacing (and returning) the previous value or returning missing if absent
+     */
+    public int put(long key, int value, int missing){
+        if(key == LongHashSet.EMPTY) throw new IllegalArgumentException("Error: " + key + " cannot be stored in a LongIntHashMap");
+
+        int slot = slot(key);
+        while(keys[slot] != LongHashSet.EMPTY){
+            probes++;
+            if(keys[slot] == key){
+                int old = values[slot];
+                values[slot] = value;
+                return old;
+            }
+            slot = (slot + 1) & mask;
+        }
+        probes++;
+        keys[slot] = key;
+        values[slot] = value;
+        if(++size >= resizeAt) rehash(keys.length << 1);
+        return missing;
+    }
+
+    public void put(long key, int value){
+        put(key, value, 0);
+    }
+
+    /*
+    Method to get the value associated to key, or the passed missing value if the key is not in the map
+     */
+    public int get(long key, int missing){
+        int slot = slot(key);
+        while(keys[slot] != LongHashSet.EMPTY){
+            probes++;
+            if(keys[slot] == key) return values[slot];
+            slot = (slot + 1) & mask;
+        }
+        probes++;
+        return missing;
+    }
+
+    public boolean containsKey(long key){
+        int slot = slot(key);
+        while(keys[slot] != LongHashSet.EMPTY){
+            probes++;
+            if(keys[slot] == key) return true;
+            slot = (slot + 1) & mask;
+        }
+        probes++;
+        return false;
+    }
+
+    public int size(){
+        return size;
+    }
+
+    public long getProbes(){
+        return probes;
+    }
+
+    public long bytes(){
+        return (long) keys.length * 12;
+    }
+
+    public void clear(){
+        Arrays.fill(keys, LongHashSet.EMPTY);
+        size = 0;
+    }
+
+    /*
+    Methods to go through the entries in slot order: slots 0 to capacity()-1, keyAt() being LongHashSet.EMPTY for the
+    free ones. No key may be added meanwhile (it could move the entries), values may be changed.
+     */
+    public int capacity(){
+        return keys.length;
+    }
+
+    public long keyAt(int slot){
+        return keys[slot];
+    }
+
+    public int valueAt(int slot){
+        return values[slot];
+    }
+
+    private int slot(long key){
+        return LongHashSet.hash(key) & mask;
+    }
+
+    private void allocate(int capacity){
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, LongHashSet.EMPTY);
+        mask = capacity - 1;
+        resizeAt = Math.min(capacity - 1, (int) (capacity * loadFactor));
+    }
+
+    private void rehash(int capacity){
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        for(int i = 0; i < oldKeys.length; i++){
+            if(oldKeys[i] != LongHashSet.EMPTY){
+                int slot = slot(oldKeys[i]);
+                while(keys[slot] != LongHashSet.EMPTY) slot = (slot + 1) & mask;
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+/**
+ * AUTHOR: Roberto J Gregoratti - rjg1g12@ecs.soton.ac.uk , University of Southampton ECS
+ * PROJECT: COMP2208 Search Methods assignment (BlocksWorld coursework)
+ * VERSION: v1.0
+ * DATE: Jan 2014
+ * CLASS: ManhattanHeuristic (sum of the Manhattan distances of A, B and C, see State.manhattan())
+ */
+
+/*
+This class is the original estimate of Node.getCostEstimate() (the agent is not counted) as a Heuristic object, so
+that it can be swapped with the pattern databases in A* and IDA*.
+ */
+
+public class ManhattanHeuristic implements Heuristic {
+
+    private final long goal;
+    private final int gridDimension;
+
+    public ManhattanHeuristic(State goal){
+        this.goal = goal.getPacked();
+        this.gridDimension = goal.gridDimension;
+    }
+
+    public int estimate(long packed){
+        return State.manhattan(packed, goal, gridDimension);
+    }
+
+    public String getName(){
+        return "MD";
+    }
+}
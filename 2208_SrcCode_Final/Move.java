@@ -8,12 +8,39 @@
 
 /*
 This enum represents all the possible moves the agent can take, which will be analysed/authorised or rejected
-in the Node/State classes
+in the Node/State classes. Each move has the letter used in solution paths (see Node.displaySolution()) and an
+opposite move, which undoes it (moves only swap the agent with a neighbouring cell, so they are reversible).
  */
 
 public enum Move {
-    DOWN,
-    LEFT,
-    RIGHT,
-    UP
+    DOWN("D"),
+    LEFT("L"),
+    RIGHT("R"),
+    UP("U");
+
+    private final String letter;
+
+    Move(String letter){
+        this.letter = letter;
+    }
+
+    public String getLetter(){
+        return letter;
+    }
+
+    public static Move fromLetter(String letter){       //move with the given letter, null if none
+        for(Move move : values()){
+            if(move.letter.equals(letter)) return move;
+        }
+        return null;
+    }
+
+    public Move opposite(){
+        switch(this){
+            case DOWN: return UP;
+            case LEFT: return RIGHT;
+            case RIGHT: return LEFT;
+            default: return DOWN;
+        }
+    }
 }
@@ -39,6 +39,20 @@ public class Node implements Comparable {
         this.pathCost = 0;
     }
 
+    /*
+    Method building the chain of Nodes reached from the start node with the passed moves, returns the last one (the
+    searches working on packed states use it to return their solution as Nodes)
+     */
+    public static Node replay(Node start, Move[] moves){
+        Node node = start;
+        for(Move move : moves){
+            State next = new State(node.getState());
+            next.moveAgent(move);
+            node = new Node(node, next, move.getLetter());
+        }
+        return node;
+    }
+
     public Node getParent(){
         return parent;
     }
@@ -55,46 +69,56 @@ public class Node implements Comparable {
         return pathCost;
     }
 
+    public String getDirection(){       //move taken from the parent to reach this node
+        return direction;
+    }
+
+    public int getHeuristic(){          //estimated total cost (f-value) as computed by getCostEstimate()
+        return heuristic;
+    }
+
     /*
     Method to create and return an ArrayList of Nodes representing the possible moves from this instance of node.
-    The x/y coordinates are checked against the array limits (for the world boundaries), then if the move is
-    feasible a new temporary node is created, in which the agent moves in that specific direction (swapping positions
+    The agent's cell is checked against the world boundaries, then if the move is feasible a new temporary node is
+    created from a copy of this state, in which the agent moves in that specific direction (swapping positions
     with the tile that was in its place earlier). The new (neighbour) node is added to the arraylist of possible
     moves, which will be retrieved by the search methods when calling this method.
      */
     public ArrayList<Node> checkMoves(){
 
-        ArrayList<Node> moves = new ArrayList<Node>();
+        CheckMovesEvent event = new CheckMovesEvent();
+        event.begin();
+        ArrayList<Node> moves = new ArrayList<Node>(4);
+        int agentX = state.getXPos(State.AGENT);
+        int agentY = state.getYPos(State.AGENT);
 
-        if(state.agent.getYPos() > 0){
-            State state1 = new State(this.state.a.getXPos(),this.state.a.getYPos(),this.state.b.getXPos(),this.state.b.getYPos(),
-                    this.state.c.getXPos(),this.state.c.getYPos(),this.state.agent.getXPos(),this.state.agent.getYPos(), this.state.gridDimension);
-            Node temp = new Node(this,state1, "U");
+        if(agentY > 0){
+            Node temp = new Node(this, new State(this.state), "U");
             temp.state.moveAgent(Move.UP);
             moves.add(temp);
         }
-        if(state.agent.getYPos() < state.gridDimension - 1){
-            State state1 = new State(this.state.a.getXPos(),this.state.a.getYPos(),this.state.b.getXPos(),this.state.b.getYPos(),
-                    this.state.c.getXPos(),this.state.c.getYPos(),this.state.agent.getXPos(),this.state.agent.getYPos(),this.state.gridDimension);
-            Node temp = new Node(this,state1, "D");
+        if(agentY < state.gridDimension - 1){
+            Node temp = new Node(this, new State(this.state), "D");
             temp.state.moveAgent(Move.DOWN);
             moves.add(temp);
         }
-        if(state.agent.getXPos() > 0){
-            State state1 = new State(this.state.a.getXPos(),this.state.a.getYPos(),this.state.b.getXPos(),this.state.b.getYPos(),
-                    this.state.c.getXPos(),this.state.c.getYPos(),this.state.agent.getXPos(),this.state.agent.getYPos(),this.state.gridDimension);
-            Node temp = new Node(this,state1, "L");
+        if(agentX > 0){
+            Node temp = new Node(this, new State(this.state), "L");
             temp.state.moveAgent(Move.LEFT);
             moves.add(temp);
         }
-        if(state.agent.getXPos() < state.gridDimension - 1){
-            State state1 = new State(this.state.a.getXPos(),this.state.a.getYPos(),this.state.b.getXPos(),this.state.b.getYPos(),
-                    this.state.c.getXPos(),this.state.c.getYPos(),this.state.agent.getXPos(),this.state.agent.getYPos(),this.state.gridDimension);
-            Node temp = new Node(this,state1, "R");
+        if(agentX < state.gridDimension - 1){
+            Node temp = new Node(this, new State(this.state), "R");
             temp.state.moveAgent(Move.RIGHT);
             moves.add(temp);
         }
 
+        event.end();
+        if(event.shouldCommit()){
+            event.gridDimension = state.gridDimension;
+            event.successors = moves.size();
+            event.commit();
+        }
         return moves;
     }
 
@@ -137,21 +161,20 @@ public class Node implements Comparable {
 
     /*
     Method to estimate heuristic cost from current node to end node, by summing path distance for each tile from current
-    (this) node to end node and further summing the depth of the current node. The agent cost has been commented out to
-    make the heuristics accurate and consistent, otherwise data obtained was deemed inconsistent.
+    (this) node to end node and further summing the depth of the current node. The agent cost is left out (see
+    State.manhattan()) to make the heuristics accurate and consistent, otherwise data obtained was deemed inconsistent.
      */
     public void getCostEstimate(Node target){            //returns heuristic estimate
 
-        int aCostX = Math.abs(target.getState().a.getXPos() - getState().a.getXPos());
-        int aCostY = Math.abs(target.getState().a.getYPos() - getState().a.getYPos());
-        int bCostX = Math.abs(target.getState().b.getXPos() - getState().b.getXPos());
-        int bCostY = Math.abs(target.getState().b.getYPos() - getState().b.getYPos());
-        int cCostX = Math.abs(target.getState().c.getXPos() - getState().c.getXPos());
-        int cCostY = Math.abs(target.getState().c.getYPos() - getState().c.getYPos());
-        //int agentCostX = Math.abs(target.getState().agent.getXPos() - getState().agent.getXPos());
-        //int agentCostY = Math.abs(target.getState().agent.getYPos() - getState().agent.getYPos());
+        this.heuristic = State.manhattan(state.getPacked(), target.getState().getPacked(), state.gridDimension) + getDepth();
+    }
 
-        this.heuristic = aCostX + aCostY + bCostX + bCostY + cCostX + cCostY + getDepth();
+    /*
+    Method to estimate the cost with the passed Heuristic (eg a pattern database) instead of the Manhattan distance,
+    the depth is summed as above
+     */
+    public void getCostEstimate(Heuristic estimator){
+        this.heuristic = estimator.estimate(state.getPacked()) + getDepth();
     }
 
     /*
@@ -0,0 +1,166 @@
+import java.util.Arrays;
+
+/**
+ * AUTHOR: Roberto J Gregoratti - rjg1g12@ecs.soton.ac.uk , University of Southampton ECS
+ * PROJECT: COMP2208 Search Methods assignment (BlocksWorld coursework)
+ * VERSION: v1.0
+ * DATE: Jan 2014
+ * CLASS: NodeArena (search tree kept in parallel primitive arrays, nodes referred to by index)
+ */
+
+/*
+This class stores the nodes generated by a search in parallel primitive arrays (struct of arrays) instead of Node
+objects: packed state, parent index, depth, path cost, heuristic estimate and the move from the parent, about 25
+bytes per node against a few hundred for a Node with its State, parent reference and direction String. A node is an
+int index, so the parent chain is a chain of indices, which keeps nothing else alive and costs nothing to the
+garbage collector. Nodes are only appended; the arrays double when full.
+The path to a node is rebuilt by walking the parent indices (displaySolution()), and toNode() turns it into the
+usual chain of Nodes returned by the searches.
+ */
+
+public class NodeArena {
+
+    public static final int NONE = -1;              //parent of the root
+    private static final Move[] MOVES = Move.values();
+
+    private long[] states;
+    private int[] parents;
+    private int[] depths;
+    private int[] costs;                    //path cost, as Node.getCost()
+    private int[] heuristics;               //estimate to the goal (depth not included)
+    private byte[] moves;                   //Move ordinal from the parent, unused for roots
+    private int size;
+
+    public NodeArena(int expectedSize){
+        int capacity = Math.max(expectedSize, 16);
+        states = new long[capacity];
+        parents = new int[capacity];
+        depths = new int[capacity];
+        costs = new int[capacity];
+        heuristics = new int[capacity];
+        moves = new byte[capacity];
+    }
+
+    /*
+    Method to add a root node (depth and cost 0), returns its index
+     */
+    public int addRoot(long packed, int heuristic){
+        return add(packed, NONE, null, heuristic);
+    }
+
+    /*
+    Method to add the node reached from the parent node with the given move, returns its index
+     */
+    public int add(long packed, int parent, Move move, int heuristic){
+        if(size == states.length) grow();
+        int id = size++;
+        states[id] = packed;
+        parents[id] = parent;
+        if(parent != NONE){
+            depths[id] = depths[parent] + 1;
+            costs[id] = costs[parent] + 2;          //same costs as Node
+            moves[id] = (byte) move.ordinal();
+        }
+        heuristics[id] = heuristic;
+        return id;
+    }
+
+    /*
+    Method to add a node whose parent is not in this arena (eg a node of another HDAStar worker): the parent is an
+    opaque reference kept for the caller, the depth is given. getPath() and toNode() do not apply to such nodes.
+     */
+    public int addLinked(long packed, int parentRef, Move move, int depth, int heuristic){
+        if(size == states.length) grow();
+        int id = size++;
+        states[id] = packed;
+        parents[id] = parentRef;
+        depths[id] = depth;
+        costs[id] = depth * 2;
+        if(parentRef != NONE) moves[id] = (byte) move.ordinal();
+        heuristics[id] = heuristic;
+        return id;
+    }
+
+    public long getState(int id){
+        return states[id];
+    }
+
+    public int getParent(int id){
+        return parents[id];
+    }
+
+    public int getDepth(int id){
+        return depths[id];
+    }
+
+    public int getCost(int id){
+        return costs[id];
+    }
+
+    public int getHeuristic(int id){
+        return heuristics[id];
+    }
+
+    public int getF(int id){                //estimate plus depth, as Node.getHeuristic() after getCostEstimate()
+        return heuristics[id] + depths[id];
+    }
+
+    public Move getMove(int id){            //move from the parent, null for roots
+        return parents[id] == NONE ? null : MOVES[moves[id]];
+    }
+
+    /*
+    Method returning the moves from the root to the given node, by walking the parent indices
+     */
+    public Move[] getPath(int id){
+        return getPath(id, null);
+    }
+
+    /*
+    As above, followed by the passed move (eg to a successor that was not added to the arena), null for none
+     */
+    public Move[] getPath(int id, Move last){
+        Move[] path = new Move[depths[id] + (last == null ? 0 : 1)];
+        if(last != null) path[depths[id]] = last;
+        for(int node = id; parents[node] != NONE; node = parents[node]){
+            path[depths[node] - 1] = MOVES[moves[node]];
+        }
+        return path;
+    }
+
+    public String[] displaySolution(int id){        //as Node.displaySolution()
+        Move[] path = getPath(id);
+        String[] letters = new String[path.length];
+        for(int i = 0; i < path.length; i++) letters[i] = path[i].getLetter();
+        return letters;
+    }
+
+    /*
+    Method returning the path to the given node as a chain of Nodes from the passed start node (the root's state)
+     */
+    public Node toNode(int id, Node start){
+        return Node.replay(start, getPath(id));
+    }
+
+    public int size(){
+        return size;
+    }
+
+    public long bytes(){                    //memory held by the arrays
+        return (long) states.length * 25;
+    }
+
+    public void clear(){
+        size = 0;
+    }
+
+    private void grow(){
+        int capacity = states.length * 2;
+        states = Arrays.copyOf(states, capacity);
+        parents = Arrays.copyOf(parents, capacity);
+        depths = Arrays.copyOf(depths, capacity);
+        costs = Arrays.copyOf(costs, capacity);
+        heuristics = Arrays.copyOf(heuristics, capacity);
+        moves = Arrays.copyOf(moves, capacity);
+    }
+}
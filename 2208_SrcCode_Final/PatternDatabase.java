@@ -0,0 +1,263 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * AUTHOR: Roberto J Gregoratti - rjg1g12@ecs.soton.ac.uk , University of Southampton ECS
+ * PROJECT: COMP2208 Search Methods assignment (BlocksWorld coursework)
+ * VERSION: v1.0
+ * DATE: Jan 2014
+ * CLASS: PatternDatabase (precomputed table of exact distances in an abstraction of the blocksworld)
+ */
+
+/*
+This class represents a pattern database (PDB) for one grid size and goal. The pattern is the agent plus a subset of
+the tiles (eg agent+A, or agent+A+B): every other tile is treated as an empty cell, and the table holds, for every
+position of the pattern, the exact number of moves needed to bring it to its goal position. Since the abstraction
+can only be easier than the real puzzle, the stored distance never overestimates.
+The table is built by a retrograde BFS from the goal pattern (moves are reversible, so distances from the goal are
+distances to it), stored as one byte per entry (index = agent cell, then the pattern tiles' cells, in base
+gridDimension^2), saved to disk with a small header and memory-mapped when loaded, so it is built only once per
+grid size and goal.
+In additive mode only the moves that shift a pattern tile are counted (the agent walks for free): each real move
+shifts at most one tile, so tables built on disjoint tile sets can be summed. Otherwise every move costs one and
+tables can only be combined by taking their maximum (see PatternHeuristic).
+ */
+
+public class PatternDatabase implements Heuristic {
+
+    public static final File DEFAULT_DIRECTORY = new File("pdb");       //where tables are saved (working directory)
+    static final int MAGIC = 0x42575044;        //"BWPD", at the start of every table file
+    static final int HEADER_BYTES = 32;         //magic, gridDimension, tiles mask, additive flag, goal, padding
+    static final int UNKNOWN = 0xFF;            //entry not reached (distances are capped at UNKNOWN - 1)
+
+    private static final ConcurrentHashMap<String,PatternDatabase> LOADED = new ConcurrentHashMap<String,PatternDatabase>();
+
+    private final int gridDimension;
+    private final int cells;                    //gridDimension^2
+    private final int[] tiles;                  //pattern tiles (State.A/B/C), the agent is always part of the pattern
+    private final boolean additive;
+    private final long goal;
+    private final ByteBuffer table;             //distances, from offset onwards
+    private final int offset;
+
+    private PatternDatabase(int gridDimension, int[] tiles, boolean additive, long goal, ByteBuffer table, int offset){
+        this.gridDimension = gridDimension;
+        this.cells = gridDimension * gridDimension;
+        this.tiles = tiles.clone();
+        this.additive = additive;
+        this.goal = goal;
+        this.table = table;
+        this.offset = offset;
+    }
+
+    /*
+    Method returning the table for the given goal and pattern: already loaded in this JVM, loaded (memory-mapped)
+    from the directory, or built and saved there first.
+     */
+    public static PatternDatabase get(final State goal, final int[] tiles, final boolean additive, final File directory) throws IOException{
+        final File file = new File(directory, fileName(goal, tiles, additive));
+        PatternDatabase pdb = LOADED.get(file.getAbsolutePath());
+        if(pdb != null) return pdb;
+
+        synchronized(LOADED){
+            pdb = LOADED.get(file.getAbsolutePath());
+            if(pdb == null){
+                if(!file.exists()){
+                    directory.mkdirs();
+                    build(goal, tiles, additive).save(file);
+                }
+                pdb = load(file);
+                LOADED.put(file.getAbsolutePath(), pdb);
+            }
+        }
+        return pdb;
+    }
+
+    public static String fileName(State goal, int[] tiles, boolean additive){
+        StringBuilder name = new StringBuilder("pdb-" + goal.gridDimension + "-" + Long.toHexString(goal.getPacked()) + "-X");
+        for(int tile : tiles) name.append((char) ('A' + tile));
+        return name.append(additive ? "-add.bin" : "-max.bin").toString();
+    }
+
+    /*
+    Method to build a table in memory with a retrograde BFS from the goal pattern. The BFS is done layer by layer:
+    moves costing nothing (additive mode, agent not shifting a pattern tile) keep the state in the layer being
+    expanded, the others put it in the next one; entries improved after being queued are skipped when met again.
+     */
+    public static PatternDatabase build(State goal, int[] tiles, boolean additive){
+        int n = goal.gridDimension;
+        int cells = n * n;
+        long size = cells;
+        for(int i = 0; i < tiles.length; i++) size *= cells;
+        if(tiles.length < 1 || tiles.length > 3 || size > Integer.MAX_VALUE){
+            throw new IllegalArgumentException("Error: a pattern of " + tiles.length + " tiles does not fit a table for a "
+                    + n + "x" + n + " grid");
+        }
+
+        byte[] dist = new byte[(int) size];
+        Arrays.fill(dist, (byte) UNKNOWN);
+        PatternDatabase pdb = new PatternDatabase(n, tiles, additive, goal.getPacked(), ByteBuffer.wrap(dist), 0);
+
+        int[] pattern = new int[tiles.length];          //cells of the pattern tiles of the state being expanded
+        IntList current = new IntList();
+        IntList next = new IntList();
+        int start = pdb.index(goal.getPacked());
+        dist[start] = 0;
+        current.add(start);
+
+        for(int d = 0; !current.isEmpty(); d++){
+            int stored = Math.min(d, UNKNOWN - 1);
+            for(int i = 0; i < current.size(); i++){           //current can grow while being scanned (free moves)
+                int index = current.get(i);
+                if((dist[index] & 0xFF) != stored) continue;    //reached again later with a smaller distance
+
+                int rest = index;
+                for(int j = tiles.length - 1; j >= 0; j--){
+                    pattern[j] = rest % cells;
+                    rest /= cells;
+                }
+                int agent = rest;
+                int x = agent % n, y = agent / n;
+
+                for(int move = 0; move < 4; move++){
+                    int target;
+                    if(move == 0){ if(y == 0) continue; target = agent - n; }
+                    else if(move == 1){ if(y == n - 1) continue; target = agent + n; }
+                    else if(move == 2){ if(x == 0) continue; target = agent - 1; }
+                    else { if(x == n - 1) continue; target = agent + 1; }
+
+                    int moved = target;             //index of the successor, with the swapped tile (if any)
+                    boolean shifted = false;
+                    for(int j = 0; j < tiles.length; j++){
+                        int tileCell = pattern[j] == target ? agent : pattern[j];
+                        shifted |= pattern[j] == target;
+                        moved = moved * cells + tileCell;
+                    }
+
+                    int cost = (additive && !shifted) ? 0 : 1;
+                    int value = Math.min(d + cost, UNKNOWN - 1);
+                    if((dist[moved] & 0xFF) > value){
+                        dist[moved] = (byte) value;
+                        (cost == 0 ? current : next).add(moved);
+                    }
+                }
+            }
+            IntList swap = current;
+            current = next;
+            next = swap;
+            next.clear();
+        }
+        return pdb;
+    }
+
+    /*
+    Method to write the table (with its header) to the given file
+     */
+    public void save(File file) throws IOException{
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try{
+            FileChannel channel = raf.getChannel();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(MAGIC).putInt(gridDimension).putInt(tilesMask(tiles)).putInt(additive ? 1 : 0).putLong(goal);
+            header.clear();
+            channel.write(header, 0);
+
+            ByteBuffer data = table.duplicate();
+            data.position(offset);
+            long position = HEADER_BYTES;
+            while(data.hasRemaining()) position += channel.write(data, position);
+            raf.setLength(position);
+        }
+        finally{
+            raf.close();
+        }
+    }
+
+    /*
+    Method to memory-map a table saved by save(). The mapping stays valid after the file is closed.
+     */
+    public static PatternDatabase load(File file) throws IOException{
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try{
+            ByteBuffer table = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+            if(table.getInt(0) != MAGIC){
+                throw new IOException("Error: " + file + " is not a pattern database");
+            }
+            int n = table.getInt(4);
+            int mask = table.getInt(8);
+            int[] tiles = new int[Integer.bitCount(mask)];
+            for(int tile = State.A, i = 0; tile <= State.C; tile++){
+                if((mask & (1 << tile)) != 0) tiles[i++] = tile;
+            }
+            return new PatternDatabase(n, tiles, table.getInt(12) == 1, table.getLong(16), table, HEADER_BYTES);
+        }
+        finally{
+            raf.close();
+        }
+    }
+
+    public int estimate(long packed){
+        int value = table.get(offset + index(packed)) & 0xFF;
+        return value == UNKNOWN ? UNKNOWN - 1 : value;
+    }
+
+    public String getName(){
+        StringBuilder name = new StringBuilder("PDB-X");
+        for(int tile : tiles) name.append((char) ('A' + tile));
+        return name.toString();
+    }
+
+    public boolean isAdditive(){
+        return additive;
+    }
+
+    public int[] getTiles(){
+        return tiles.clone();
+    }
+
+    private int index(long packed){
+        int index = State.cell(packed, State.AGENT);
+        for(int tile : tiles) index = index * cells + State.cell(packed, tile);
+        return index;
+    }
+
+    private static int tilesMask(int[] tiles){
+        int mask = 0;
+        for(int tile : tiles) mask |= 1 << tile;
+        return mask;
+    }
+
+    /*
+    Growable list of ints used as BFS queue (a layer) while building
+     */
+    private static class IntList {
+        private int[] values = new int[1024];
+        private int size;
+
+        void add(int value){
+            if(size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+
+        int get(int i){
+            return values[i];
+        }
+
+        int size(){
+            return size;
+        }
+
+        boolean isEmpty(){
+            return size == 0;
+        }
+
+        void clear(){
+            size = 0;
+        }
+    }
+}
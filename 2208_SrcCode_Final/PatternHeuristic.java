@@ -0,0 +1,64 @@
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * AUTHOR: Roberto J Gregoratti - rjg1g12@ecs.soton.ac.uk , University of Southampton ECS
+ * PROJECT: COMP2208 Search Methods assignment (BlocksWorld coursework)
+ * VERSION: v1.0
+ * DATE: Jan 2014
+ * CLASS: PatternHeuristic (heuristic combining several pattern databases by max or sum)
+ */
+
+/*
+This class combines pattern databases into one Heuristic for A* and IDA*. Tables where every move costs one are
+combined by taking the maximum of their lookups; additive tables built on disjoint sets of tiles are summed, which
+gives a much better estimate while still never overestimating (each move shifts at most one tile).
+ */
+
+public class PatternHeuristic implements Heuristic {
+
+    static final long MAX_PAIR_TABLE = 1 << 24;     //largest table (entries) built for an agent+two tiles pattern
+
+    private final PatternDatabase[] databases;
+    private final boolean additive;
+
+    public PatternHeuristic(PatternDatabase[] databases, boolean additive){
+        for(PatternDatabase pdb : databases){
+            if(pdb.isAdditive() != additive){
+                throw new IllegalArgumentException("Error: only additive tables can be summed, and only unit-cost tables maxed");
+            }
+        }
+        this.databases = databases.clone();
+        this.additive = additive;
+    }
+
+    /*
+    Method returning the standard set of tables for a goal: agent+A+B and agent+C where the pair table is small
+    enough (grids up to 16x16), otherwise agent+A, agent+B and agent+C. Tables are loaded or built as needed.
+     */
+    public static PatternHeuristic forGoal(State goal, boolean additive, File directory) throws IOException{
+        long cells = (long) goal.gridDimension * goal.gridDimension;
+        int[][] patterns = cells * cells * cells <= MAX_PAIR_TABLE
+                ? new int[][]{ {State.A, State.B}, {State.C} }
+                : new int[][]{ {State.A}, {State.B}, {State.C} };
+
+        PatternDatabase[] databases = new PatternDatabase[patterns.length];
+        for(int i = 0; i < patterns.length; i++){
+            databases[i] = PatternDatabase.get(goal, patterns[i], additive, directory);
+        }
+        return new PatternHeuristic(databases, additive);
+    }
+
+    public int estimate(long packed){
+        int total = 0;
+        for(PatternDatabase pdb : databases){
+            int value = pdb.estimate(packed);
+            total = additive ? total + value : Math.max(total, value);
+        }
+        return total;
+    }
+
+    public String getName(){
+        return additive ? "PDB-ADD" : "PDB-MAX";
+    }
+}
@@ -0,0 +1,155 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * AUTHOR: Roberto J Gregoratti - rjg1g12@ecs.soton.ac.uk , University of Southampton ECS
+ * PROJECT: COMP2208 Search Methods assignment (BlocksWorld coursework)
+ * VERSION: v1.0
+ * DATE: Jan 2014
+ * CLASS: RankBitmapSet (closed list as one bit per state of the grid, off the heap)
+ */
+
+/*
+This class is a set of packed states holding one bit for every configuration of the grid, at its StateRanker rank:
+adding or finding a state is one ranking and one bit operation, with no hashing, probing or resizing, and the
+memory is fixed (State.stateCount() / 8 bytes) whatever the number of states added. The bits are kept off the heap,
+in segments of at most 1GB: direct ByteBuffers, or memory-mapped from a temporary file (deleted straight away, the
+mapping stays until the set is garbage collected) so that the operating system pages them in and out and the set
+is limited by the disk rather than the memory. Only the segment array and a map of the pages written are on the
+heap, which is what bytes() reports; getOffHeapBytes() gives the size of the bitmap. A mapping is only released when
+the set is collected, so a set is meant to be kept and cleared between searches (see BlocksWorld.closedSet()):
+clear() zeroes only the pages written since the last clear, so it costs what the search touched rather than the
+whole bitmap, and pages never written stay unallocated in the file.
+ */
+
+public class RankBitmapSet implements StateSet {
+
+    static final int SEGMENT_SHIFT = 30;        //bytes per segment, as a power of two
+    private static final int SEGMENT_MASK = (1 << SEGMENT_SHIFT) - 1;
+    static final int PAGE_SHIFT = 12;           //bytes per page of the written map, as a power of two
+
+    private final StateRanker ranker;
+    private final ByteBuffer[] segments;
+    private final long bitmapBytes;
+    private final long[] written;               //one bit per page of the bitmap holding an added state
+    private int size;
+    private long probes;
+
+    /*
+    Constructor for a bitmap in direct buffers (counted by the JVM against -XX:MaxDirectMemorySize)
+     */
+    public RankBitmapSet(int gridDimension){
+        checkSize(gridDimension);
+        this.ranker = new StateRanker(gridDimension);
+        this.bitmapBytes = (ranker.size() + 7) / 8;
+        this.segments = new ByteBuffer[segmentCount(bitmapBytes)];
+        this.written = new long[pageWords(bitmapBytes)];
+        for(int i = 0; i < segments.length; i++) segments[i] = ByteBuffer.allocateDirect(segmentBytes(i));
+    }
+
+    /*
+    Constructor for a bitmap mapped from a temporary file created in the given directory
+     */
+    public RankBitmapSet(int gridDimension, File directory) throws IOException{
+        checkSize(gridDimension);
+        this.ranker = new StateRanker(gridDimension);
+        this.bitmapBytes = (ranker.size() + 7) / 8;
+        this.segments = new ByteBuffer[segmentCount(bitmapBytes)];
+        this.written = new long[pageWords(bitmapBytes)];
+
+        directory.mkdirs();
+        File file = File.createTempFile("closed-", ".bits", directory);
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try{
+            raf.setLength(bitmapBytes);             //sparse, blocks are only allocated when written
+            FileChannel channel = raf.getChannel();
+            for(int i = 0; i < segments.length; i++){
+                segments[i] = channel.map(FileChannel.MapMode.READ_WRITE, (long) i << SEGMENT_SHIFT, segmentBytes(i));
+            }
+        }
+        finally{
+            raf.close();
+            if(!file.delete()) file.deleteOnExit();
+        }
+    }
+
+    public boolean add(long packed){
+        long rank = ranker.rank(packed);
+        ByteBuffer segment = segments[(int) (rank >>> (SEGMENT_SHIFT + 3))];
+        int index = (int) (rank >>> 3) & SEGMENT_MASK;
+        int bit = 1 << (rank & 7);
+        probes++;
+
+        byte bits = segment.get(index);
+        if((bits & bit) != 0) return false;
+        segment.put(index, (byte) (bits | bit));
+        long page = rank >>> (PAGE_SHIFT + 3);
+        written[(int) (page >>> 6)] |= 1L << page;
+        size++;
+        return true;
+    }
+
+    public boolean contains(long packed){
+        long rank = ranker.rank(packed);
+        probes++;
+        return (segments[(int) (rank >>> (SEGMENT_SHIFT + 3))].get((int) (rank >>> 3) & SEGMENT_MASK) & (1 << (rank & 7))) != 0;
+    }
+
+    public int size(){
+        return size;
+    }
+
+    public long getProbes(){
+        return probes;
+    }
+
+    public long bytes(){                //heap memory only: the segment array and the map of pages written
+        return 32 + segments.length * 8L + written.length * 8L;
+    }
+
+    public long getOffHeapBytes(){
+        return bitmapBytes;
+    }
+
+    public int getGridDimension(){
+        return ranker.getGridDimension();
+    }
+
+    public void clear(){                //zeroes the pages written since the last clear only
+        for(int word = 0; word < written.length; word++){
+            for(long pages = written[word]; pages != 0; pages &= pages - 1){
+                long start = (((long) word << 6) + Long.numberOfTrailingZeros(pages)) << PAGE_SHIFT;
+                ByteBuffer segment = segments[(int) (start >>> SEGMENT_SHIFT)];
+                int from = (int) start & SEGMENT_MASK;
+                int to = Math.min(from + (1 << PAGE_SHIFT), segment.capacity());
+                int i = from;
+                for(; i + 8 <= to; i += 8) segment.putLong(i, 0);
+                for(; i < to; i++) segment.put(i, (byte) 0);
+            }
+            written[word] = 0;
+        }
+        size = 0;
+    }
+
+    private static void checkSize(int gridDimension){        //the ranks have to fit in a long
+        if(gridDimension > StateRanker.MAX_GRID_DIMENSION){
+            throw new IllegalArgumentException("Error: the states of a " + gridDimension + "x" + gridDimension
+                    + " grid are too many for a bitmap");
+        }
+    }
+
+    private static int pageWords(long bytes){
+        return (int) ((((bytes + (1 << PAGE_SHIFT) - 1) >>> PAGE_SHIFT) + 63) >>> 6);
+    }
+
+    private static int segmentCount(long bytes){
+        return (int) ((bytes + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+    }
+
+    private int segmentBytes(int segment){
+        return (int) Math.min(bitmapBytes - ((long) segment << SEGMENT_SHIFT), 1L << SEGMENT_SHIFT);
+    }
+}
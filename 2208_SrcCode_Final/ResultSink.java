@@ -0,0 +1,25 @@
+import java.io.IOException;
+
+/**
+ * AUTHOR: Roberto J Gregoratti - rjg1g12@ecs.soton.ac.uk , University of Southampton ECS
+ * PROJECT: COMP2208 Search Methods assignment (BlocksWorld coursework)
+ * VERSION: v1.0
+ * DATE: Jan 2014
+ * CLASS: ResultSink (destination of the result records of the searches)
+ */
+
+/*
+Interface of the destinations of the results printed by BlocksWorld.printResults(): every search ends with one
+SearchMetrics record, passed to write() on the thread that ran the search once its timing is over. Implementations
+are CsvResultSink and BinaryResultSink, which write to a file, and AsyncResultSink, which hands the records to
+another sink on a background thread. write() may be called by several threads at the same time.
+ */
+
+public interface ResultSink {
+
+    void write(SearchMetrics metrics) throws IOException;
+
+    void flush() throws IOException;            //records written so far reach the destination
+
+    void close() throws IOException;
+}
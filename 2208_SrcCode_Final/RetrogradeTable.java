@@ -0,0 +1,260 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * AUTHOR: Roberto J Gregoratti - rjg1g12@ecs.soton.ac.uk , University of Southampton ECS
+ * PROJECT: COMP2208 Search Methods assignment (BlocksWorld coursework)
+ * VERSION: v1.0
+ * DATE: Jan 2014
+ * CLASS: RetrogradeTable (distance to a goal of every state of a grid, for optimal answers without searching)
+ */
+
+/*
+This class holds, for one goal configuration, the distance to the goal of every configuration of the grid, indexed
+by StateRanker rank. The table is built with a single backwards BFS from the goal over the whole state space (moves
+are reversible, so the predecessors of a state are its successors); the frontiers of the BFS are bitmaps over the
+ranks, so building takes 4 bits per state. Only the distance modulo 3 is stored, in 2 bits per state (3 marks the
+states the goal cannot be reached from): the neighbours of a state at distance d are at d-1, d or d+1, which are
+different modulo 3, so the neighbour one step closer to the goal is always recognised. Any start is then solved
+optimally by descending from neighbour to neighbour, in O(depth) table lookups (solve()).
+Tables are saved to disk with a small header and memory-mapped when loaded (like the pattern databases); they are
+meant to be built offline, once per grid size, with main(). The table of a grid holds n^2(n^2-1)(n^2-2)(n^2-3)/4
+bytes, which limits them to the small and medium grids (up to 16x16 in one mapping).
+ */
+
+public class RetrogradeTable {
+
+    public static final File DEFAULT_DIRECTORY = new File("tables");     //where tables are saved (working directory)
+    static final int MAGIC = 0x42575254;        //"BWRT", at the start of every table file
+    static final int HEADER_BYTES = 32;         //magic, gridDimension, goal, maximum distance, reachable states
+    static final int UNREACHABLE = 3;
+
+    private static final ConcurrentHashMap<String,RetrogradeTable> LOADED = new ConcurrentHashMap<String,RetrogradeTable>();
+
+    private final int gridDimension;
+    private final long goal;
+    private final StateRanker ranker;
+    private final ByteBuffer table;             //2 bits per rank, from offset onwards
+    private final int offset;
+    private final int maxDistance;
+    private final long reachable;
+
+    private RetrogradeTable(int gridDimension, long goal, ByteBuffer table, int offset, int maxDistance, long reachable){
+        this.gridDimension = gridDimension;
+        this.goal = goal;
+        this.ranker = new StateRanker(gridDimension);
+        this.table = table;
+        this.offset = offset;
+        this.maxDistance = maxDistance;
+        this.reachable = reachable;
+    }
+
+    /*
+    Method returning the table for the given goal if it has been built in the directory (loaded once per JVM), null
+    otherwise: tables are too expensive to be built on demand
+     */
+    public static RetrogradeTable find(State goal, File directory) throws IOException{
+        File file = new File(directory, fileName(goal));
+        RetrogradeTable table = LOADED.get(file.getAbsolutePath());
+        if(table != null || !file.exists()) return table;
+
+        synchronized(LOADED){
+            table = LOADED.get(file.getAbsolutePath());
+            if(table == null){
+                table = load(file);
+                LOADED.put(file.getAbsolutePath(), table);
+            }
+        }
+        return table;
+    }
+
+    public static String fileName(State goal){
+        return "table-" + goal.gridDimension + "-" + Long.toHexString(goal.getPacked()) + ".bin";
+    }
+
+    /*
+    Method to build the table in memory with the retrograde BFS from the goal. Every layer is the set bits of the
+    current bitmap; the states reached for the first time are given the next distance and set in the next bitmap.
+     */
+    public static RetrogradeTable build(State goal){
+        int n = goal.gridDimension;
+        StateRanker ranker = new StateRanker(n);
+        long count = ranker.size();
+        if((count + 3) / 4 > Integer.MAX_VALUE - HEADER_BYTES){
+            throw new IllegalArgumentException("Error: the table of a " + n + "x" + n + " grid does not fit in one file mapping");
+        }
+
+        byte[] values = new byte[(int) ((count + 3) / 4)];
+        Arrays.fill(values, (byte) 0xFF);               //every state UNREACHABLE
+        long[] current = new long[(int) ((count + 63) / 64)];
+        long[] next = new long[current.length];
+        SuccessorBuffer successors = new SuccessorBuffer();
+
+        long start = ranker.rank(goal.getPacked());
+        set(values, start, 0);
+        current[(int) (start >>> 6)] |= 1L << start;
+        long reachable = 1;
+        int distance = 0;
+
+        for(boolean more = true; more; distance++){
+            more = false;
+            int value = (distance + 1) % 3;
+            for(int word = 0; word < current.length; word++){
+                long bits = current[word];
+                while(bits != 0){
+                    long rank = ((long) word << 6) + Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+
+                    int moves = State.expand(ranker.unrank(rank), n, null, successors);
+                    for(int i = 0; i < moves; i++){
+                        long neighbour = ranker.rank(successors.getState(i));
+                        if(get(values, neighbour) == UNREACHABLE){
+                            set(values, neighbour, value);
+                            next[(int) (neighbour >>> 6)] |= 1L << neighbour;
+                            reachable++;
+                            more = true;
+                        }
+                    }
+                }
+            }
+            long[] swap = current;
+            current = next;
+            next = swap;
+            Arrays.fill(next, 0);
+        }
+        return new RetrogradeTable(n, goal.getPacked(), ByteBuffer.wrap(values), 0, distance - 1, reachable);
+    }
+
+    /*
+    Method to write the table (with its header) to the given file
+     */
+    public void save(File file) throws IOException{
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try{
+            FileChannel channel = raf.getChannel();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(MAGIC).putInt(gridDimension).putLong(goal).putInt(maxDistance).putLong(reachable);
+            header.clear();
+            channel.write(header, 0);
+
+            ByteBuffer data = table.duplicate();
+            data.position(offset);
+            long position = HEADER_BYTES;
+            while(data.hasRemaining()) position += channel.write(data, position);
+            raf.setLength(position);
+        }
+        finally{
+            raf.close();
+        }
+    }
+
+    /*
+    Method to memory-map a table saved by save(). The mapping stays valid after the file is closed.
+     */
+    public static RetrogradeTable load(File file) throws IOException{
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try{
+            ByteBuffer table = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+            if(table.getInt(0) != MAGIC){
+                throw new IOException("Error: " + file + " is not a retrograde table");
+            }
+            return new RetrogradeTable(table.getInt(4), table.getLong(8), table, HEADER_BYTES, table.getInt(16), table.getLong(20));
+        }
+        finally{
+            raf.close();
+        }
+    }
+
+    /*
+    Method returning the moves of an optimal solution from the passed configuration to the goal, null if the goal
+    cannot be reached from it. At every step the neighbour whose value is one less (modulo 3) is one step closer.
+     */
+    public Move[] solve(long packed){
+        int value = value(packed);
+        if(value == UNREACHABLE) return null;
+
+        SuccessorBuffer successors = new SuccessorBuffer();
+        Move[] moves = new Move[16];
+        int depth = 0;
+        while(packed != goal){
+            int closer = (value + 2) % 3;
+            int count = State.expand(packed, gridDimension, null, successors);
+            int i = 0;
+            while(i < count && value(successors.getState(i)) != closer) i++;
+            if(i == count){
+                throw new IllegalStateException("Error: retrograde table inconsistent at state " + Long.toHexString(packed));
+            }
+            if(depth == moves.length) moves = Arrays.copyOf(moves, depth * 2);
+            moves[depth++] = successors.getMove(i);
+            packed = successors.getState(i);
+            value = closer;
+        }
+        return Arrays.copyOf(moves, depth);
+    }
+
+    public int distance(long packed){               //exact distance to the goal, -1 if unreachable
+        Move[] moves = solve(packed);
+        return moves == null ? -1 : moves.length;
+    }
+
+    public int value(long packed){                  //distance modulo 3, or UNREACHABLE
+        long rank = ranker.rank(packed);
+        return (table.get(offset + (int) (rank >>> 2)) >>> ((rank & 3) << 1)) & 3;
+    }
+
+    public int getGridDimension(){
+        return gridDimension;
+    }
+
+    public long getGoal(){
+        return goal;
+    }
+
+    public int getMaxDistance(){                    //largest distance to the goal of a state of the grid
+        return maxDistance;
+    }
+
+    public long getReachable(){                     //states the goal can be reached from
+        return reachable;
+    }
+
+    private static int get(byte[] values, long rank){
+        return (values[(int) (rank >>> 2)] >>> ((rank & 3) << 1)) & 3;
+    }
+
+    private static void set(byte[] values, long rank, int value){
+        int index = (int) (rank >>> 2);
+        int shift = (int) ((rank & 3) << 1);
+        values[index] = (byte) ((values[index] & ~(3 << shift)) | (value << shift));
+    }
+
+    /*
+    Offline builder: builds and saves the tables of the goal of TestHarness.createSizedWorld() for the given grid
+    sizes, in the given directory (DEFAULT_DIRECTORY if none).
+    Usage: java RetrogradeTable minSize maxSize [directory]
+     */
+    public static void main(String[] args) throws Exception{
+        if(args.length < 2){
+            System.out.println("Usage: java RetrogradeTable minSize maxSize [directory]");
+            return;
+        }
+        File directory = args.length > 2 ? new File(args[2]) : DEFAULT_DIRECTORY;
+        directory.mkdirs();
+
+        for(int size = Integer.parseInt(args[0]); size <= Integer.parseInt(args[1]); size++){
+            State goal = new State(1,size - 3,1,size - 2,1,size - 1,size - 1,size - 1,size);     //finish of createSizedWorld()
+            long start_time = System.currentTimeMillis();
+            RetrogradeTable table = build(goal);
+            File file = new File(directory, fileName(goal));
+            table.save(file);
+            System.out.println(size + "x" + size + ": " + table.getReachable() + " states reach the goal, at most "
+                    + table.getMaxDistance() + " moves away; built in " + (System.currentTimeMillis() - start_time)
+                    + " ms, saved to " + file);
+        }
+    }
+}
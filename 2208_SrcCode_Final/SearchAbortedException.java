@@ -0,0 +1,45 @@
+/**
+ * AUTHOR: Roberto J Gregoratti - rjg1g12@ecs.soton.ac.uk , University of Southampton ECS
+ * PROJECT: COMP2208 Search Methods assignment (BlocksWorld coursework)
+ * VERSION: v1.0
+ * DATE: Jan 2014
+ * CLASS: SearchAbortedException (thrown by a search stopped by its SearchLimits)
+ */
+
+/*
+This exception is thrown by the searches of BlocksWorld when one of their SearchLimits is passed (or the thread is
+interrupted). The reason tells which limit stopped the search, and the metrics (when the search sets them) how far
+it got: this is the result of a search over its memory budget.
+ */
+
+public class SearchAbortedException extends Exception {
+
+    public enum Reason {
+        STATES,
+        TIME,
+        MEMORY,
+        CANCELLED
+    }
+
+    private static final long serialVersionUID = 1L;
+
+    private final Reason reason;
+    private SearchMetrics metrics;          //metrics of the search up to the point it was stopped, may be null
+
+    public SearchAbortedException(Reason reason, String message){
+        super("Search aborted: " + message);
+        this.reason = reason;
+    }
+
+    public Reason getReason(){
+        return reason;
+    }
+
+    public void setMetrics(SearchMetrics metrics){
+        this.metrics = metrics;
+    }
+
+    public SearchMetrics getMetrics(){
+        return metrics;
+    }
+}
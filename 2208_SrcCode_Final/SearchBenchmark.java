@@ -0,0 +1,188 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * AUTHOR: Roberto J Gregoratti - rjg1g12@ecs.soton.ac.uk , University of Southampton ECS
+ * PROJECT: COMP2208 Search Methods assignment (BlocksWorld coursework)
+ * VERSION: v1.0
+ * DATE: Jan 2014
+ * CLASS: SearchBenchmark (benchmark suite for successor generation, state operations and the searches)
+ */
+
+/*
+This class runs benchmarks of the basic operations (Node.checkMoves, State.expand, State.moveAgent, State.compareTo,
+Node.getCostEstimate) and of the BFS, DFS, IDS and A* searches, for every grid size in a range (4 to 20 by default).
+Every benchmark is run for some warmup iterations first (so that the JIT has compiled the code), then measured with
+System.nanoTime over several iterations; the bytes allocated per operation are read from the thread's allocation
+counter, so the effect of changes on garbage is visible as well as on time.
+Searches run with SearchLimits, and the ones exceeding them (DFS/IDS on the larger grids) are reported as skipped.
+Results are written as CSV; when a baseline file (a previous run, eg the ones checked in under benchmarks/) is
+given, the ratio to it is printed for each benchmark. Lines starting with '#' in a baseline are notes (which commit
+the run is from) and are skipped. benchmarks/baseline-919b09f.csv is the original tree, measured with the port of
+this suite in benchmarks/OriginalTreeBenchmark.java; benchmarks/baseline.csv is the tree named in its first line.
+
+Usage: java SearchBenchmark [minSize maxSize] [-out results.csv] [-baseline benchmarks/baseline.csv]
+ */
+
+public class SearchBenchmark {
+
+    static final int WARMUP_ITERATIONS = 3;
+    static final int MEASURED_ITERATIONS = 5;
+    static final int MICRO_OPS = 200000;        //operations per iteration for the basic operations
+    static final int SAMPLE_STATES = 1024;      //random states the basic operations cycle through
+    static final SearchLimits SEARCH_LIMITS = new SearchLimits(1000000, 5000);
+
+    static volatile long sink;          //results are accumulated here so the JIT cannot drop the benchmarked code
+
+    interface Operation {
+        long run(int i) throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception{
+        int minSize = 4, maxSize = 20;
+        String outFile = "benchmark_results.csv";
+        String baselineFile = null;
+
+        for(int i = 0; i < args.length; i++){
+            if(args[i].equals("-out")) outFile = args[++i];
+            else if(args[i].equals("-baseline")) baselineFile = args[++i];
+            else{
+                minSize = Integer.parseInt(args[i]);
+                maxSize = Integer.parseInt(args[++i]);
+            }
+        }
+
+        Map<String,Double> baseline = baselineFile == null ? null : readBaseline(new File(baselineFile));
+        PrintStream out = new PrintStream(new File(outFile));
+        out.println("benchmark,size,ns_per_op,bytes_per_op");
+
+        for(int size = minSize; size <= maxSize; size++){
+            benchmarkSize(size, out, baseline);
+        }
+        out.close();
+    }
+
+    /*
+    Method to run all the benchmarks for one grid size. The basic operations work on random states, the searches
+    on the TestHarness.createSizedWorld() layout.
+     */
+    static void benchmarkSize(final int size, PrintStream out, Map<String,Double> baseline) throws Exception{
+        final Node[] nodes = randomNodes(size, SAMPLE_STATES, new Random(size));
+        final Move[] moves = Move.values();
+        final int mask = SAMPLE_STATES - 1;
+
+        int minusOne = size - 1, minusTwo = size - 2, minusThree = size - 3;
+        final BlocksWorld world = new BlocksWorld(0,minusOne,1,minusOne,2,minusOne, minusOne, minusOne,1,minusThree,1,minusTwo,
+                1,minusOne,minusOne,minusOne,size,null);
+        world.setLimits(SEARCH_LIMITS);
+        final Node target = world.finish;
+
+        report("checkMoves", size, MICRO_OPS, i -> nodes[i & mask].checkMoves().size(), out, baseline);
+        final SuccessorBuffer successors = new SuccessorBuffer();
+        report("expand", size, MICRO_OPS, i -> nodes[i & mask].getState().expand(successors), out, baseline);
+        report("moveAgent", size, MICRO_OPS, i -> {
+            State state = nodes[i & mask].getState();
+            long before = state.getPacked();
+            boolean moved = state.moveAgent(moves[i & 3]);
+            if(moved) state.moveAgent(moves[i & 3].opposite());        //undo, so the sample states do not drift
+            return before;
+        }, out, baseline);
+        report("compareTo", size, MICRO_OPS, i -> nodes[i & mask].getState().compareTo(nodes[(i + 1) & mask].getState()) ? 1 : 0, out, baseline);
+        report("getCostEstimate", size, MICRO_OPS, i -> {
+            nodes[i & mask].getCostEstimate(target);
+            return nodes[i & mask].getHeuristic();
+        }, out, baseline);
+
+        report("breadthFirst", size, 1, i -> world.breadthFirst(world.current, world.finish).getDepth(), out, baseline);
+        report("depthFirst", size, 1, i -> world.depthFirst(world.current, world.finish).getDepth(), out, baseline);
+        report("iterativeDeepening", size, 1, i -> world.iterativeDeepening(world.current, world.finish).getDepth(), out, baseline);
+        report("heuristic", size, 1, i -> world.heuristic(world.current, world.finish).getDepth(), out, baseline);
+    }
+
+    /*
+    Method to measure one benchmark (ops operations per iteration) and print its line. If an iteration is aborted by
+    the search limits the benchmark is reported as skipped.
+     */
+    static void report(String name, int size, int ops, Operation operation, PrintStream out, Map<String,Double> baseline) throws Exception{
+        double[] result;
+        try{
+            for(int i = 0; i < WARMUP_ITERATIONS; i++) iteration(ops, operation);
+            double nanos = 0, bytes = 0;
+            for(int i = 0; i < MEASURED_ITERATIONS; i++){
+                result = iteration(ops, operation);
+                nanos += result[0];
+                bytes += result[1];
+            }
+            result = new double[]{ nanos / MEASURED_ITERATIONS, bytes / MEASURED_ITERATIONS };
+        }
+        catch(SearchAbortedException e){
+            System.out.println(name + " (" + size + "x" + size + ") skipped: " + e.getMessage());
+            return;
+        }
+
+        out.println(name + "," + size + "," + String.format("%.1f", result[0]) + "," + String.format("%.1f", result[1]));
+
+        String line = String.format("%-20s %2dx%-2d %14.1f ns/op %14.1f B/op", name, size, size, result[0], result[1]);
+        Double before = baseline == null ? null : baseline.get(name + "," + size);
+        if(before != null) line += String.format("   x%.2f vs baseline", result[0] / before);
+        System.out.println(line);
+    }
+
+    /*
+    Method to run one iteration, returns the time (ns) and bytes allocated per operation
+     */
+    static double[] iteration(int ops, Operation operation) throws Exception{
+        long bytesBefore = allocatedBytes();
+        long start = System.nanoTime();
+        long acc = 0;
+        for(int i = 0; i < ops; i++) acc += operation.run(i);
+        long time = System.nanoTime() - start;
+        long bytes = allocatedBytes() - bytesBefore;
+        sink += acc;
+        return new double[]{ (double) time / ops, (double) bytes / ops };
+    }
+
+    static long allocatedBytes(){
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /*
+    Method to create count nodes with random (valid) states on a grid of the given size
+     */
+    static Node[] randomNodes(int size, int count, Random random){
+        int cells = size * size;
+        Node[] nodes = new Node[count];
+        for(int i = 0; i < count; i++){
+            int a = random.nextInt(cells), b, c, agent;
+            do{ b = random.nextInt(cells); } while(b == a);
+            do{ c = random.nextInt(cells); } while(c == a || c == b);
+            do{ agent = random.nextInt(cells); } while(agent == a || agent == b || agent == c);
+            nodes[i] = new Node(new State(State.pack(a, b, c, agent), size));
+        }
+        return nodes;
+    }
+
+    static Map<String,Double> readBaseline(File file) throws Exception{
+        Map<String,Double> baseline = new HashMap<String,Double>();
+        BufferedReader reader = new BufferedReader(new FileReader(file));
+        try{
+            String line;
+            while((line = reader.readLine()) != null){
+                if(line.startsWith("#") || line.startsWith("benchmark,")) continue;        //notes and header
+                String[] fields = line.split(",");
+                baseline.put(fields[0] + "," + fields[1], Double.parseDouble(fields[2]));
+            }
+        }
+        finally{
+            reader.close();
+        }
+        return baseline;
+    }
+}
@@ -0,0 +1,61 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * AUTHOR: Roberto J Gregoratti - rjg1g12@ecs.soton.ac.uk , University of Southampton ECS
+ * PROJECT: COMP2208 Search Methods assignment (BlocksWorld coursework)
+ * VERSION: v1.0
+ * DATE: Jan 2014
+ * CLASS: SearchEndEvent (Java Flight Recorder event, a search from its start to its end)
+ */
+
+/*
+This class is the JFR event of a whole search, begun with its SearchMetrics and committed by SearchMetrics.finish():
+its duration is the search's, and its fields the figures of the CSV row. The outcome is SOLVED, NO_SOLUTION or the
+SearchAbortedException.Reason of a search stopped by its limits.
+ */
+
+@Name("blocksworld.SearchEnd")
+@Label("Search")
+@Category("BlocksWorld")
+@Description("A search of BlocksWorld, from its start to its end")
+public class SearchEndEvent extends jdk.jfr.Event {
+
+    @Label("Search")
+    String search;
+
+    @Label("Grid Dimension")
+    int gridDimension;
+
+    @Label("Outcome")
+    String outcome;
+
+    @Label("Depth")
+    @Description("Moves of the solution, -1 if none")
+    int depth;
+
+    @Label("Visited")
+    int visited;
+
+    @Label("Expanded")
+    long expanded;
+
+    @Label("Generated")
+    long generated;
+
+    @Label("Duplicates")
+    long duplicates;
+
+    @Label("Peak Open")
+    int peakOpen;
+
+    @Label("Peak Closed")
+    int peakClosed;
+
+    @Label("Estimated Memory")
+    @DataAmount
+    long estimatedBytes;
+}
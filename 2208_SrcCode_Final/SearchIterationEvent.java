@@ -0,0 +1,45 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * AUTHOR: Roberto J Gregoratti - rjg1g12@ecs.soton.ac.uk , University of Southampton ECS
+ * PROJECT: COMP2208 Search Methods assignment (BlocksWorld coursework)
+ * VERSION: v1.0
+ * DATE: Jan 2014
+ * CLASS: SearchIterationEvent (Java Flight Recorder event, one iteration of IDS or IDA*)
+ */
+
+/*
+This class is the JFR event of one iteration of the iterative deepening searches: the depth limit of IDS or the
+f-value threshold of IDA*, the states it stored and the nodes expanded by the search up to its end, so a recording
+shows how the iterations grow.
+ */
+
+@Name("blocksworld.SearchIteration")
+@Label("Search Iteration")
+@Category("BlocksWorld")
+@Description("One iteration of an iterative deepening search")
+public class SearchIterationEvent extends jdk.jfr.Event {
+
+    @Label("Search")
+    String search;
+
+    @Label("Grid Dimension")
+    int gridDimension;
+
+    @Label("Bound")
+    @Description("Depth limit (IDS) or f-value threshold (IDA*) of the iteration")
+    int bound;
+
+    @Label("Stored States")
+    int stored;
+
+    @Label("Expanded")
+    @Description("Nodes expanded by the search so far")
+    long expanded;
+
+    @Label("Solved")
+    boolean solved;
+}
@@ -0,0 +1,106 @@
+/**
+ * AUTHOR: Roberto J Gregoratti - rjg1g12@ecs.soton.ac.uk , University of Southampton ECS
+ * PROJECT: COMP2208 Search Methods assignment (BlocksWorld coursework)
+ * VERSION: v1.0
+ * DATE: Jan 2014
+ * CLASS: SearchLimits (per-search limits on stored states, memory and running time)
+ */
+
+/*
+This class holds the limits a search has to respect: the maximum number of states it may store, the maximum number
+of bytes its open and closed lists may take (as estimated by the search) and the maximum time it may run (0 meaning
+no limit). It keeps no counters, the searches pass theirs to check(), so one object can be shared by any number of
+concurrent searches. Interrupting the thread running a search also stops it.
+The memory budget lets a search stop (or fall back to a search needing less memory) well before the heap is used up,
+rather than running into an OutOfMemoryError that leaves the JVM in an unknown state.
+The off-heap budget bounds the memory a search may take outside the heap, the bitmap closed sets of BFS and DFS
+(see BlocksWorld.closedSet()): a search whose bitmap would be larger uses a hashed closed set on the heap instead.
+ */
+
+public class SearchLimits {
+
+    public static final SearchLimits NONE = new SearchLimits(0, 0);
+
+    private final long maxStates;
+    private final long maxMillis;
+    private final long maxBytes;
+    private final long maxOffHeapBytes;
+
+    public SearchLimits(long maxStates, long maxMillis){
+        this(maxStates, maxMillis, 0);
+    }
+
+    public SearchLimits(long maxStates, long maxMillis, long maxBytes){
+        this(maxStates, maxMillis, maxBytes, 0);
+    }
+
+    public SearchLimits(long maxStates, long maxMillis, long maxBytes, long maxOffHeapBytes){
+        if(maxStates < 0 || maxMillis < 0 || maxBytes < 0 || maxOffHeapBytes < 0){
+            throw new IllegalArgumentException("Error: search limits cannot be negative");
+        }
+        this.maxStates = maxStates;
+        this.maxMillis = maxMillis;
+        this.maxBytes = maxBytes;
+        this.maxOffHeapBytes = maxOffHeapBytes;
+    }
+
+    /*
+    Method returning limits with only a memory budget, the given fraction of the maximum heap of the JVM
+     */
+    public static SearchLimits heapBudget(double fraction){
+        if(fraction <= 0 || fraction > 1){
+            throw new IllegalArgumentException("Error: heap fraction must be in (0, 1]");
+        }
+        return new SearchLimits(0, 0, (long) (Runtime.getRuntime().maxMemory() * fraction));
+    }
+
+    /*
+    Method called by the searches while running, with the number of states stored so far and the time at which the
+    search started (System.currentTimeMillis()). Throws a SearchAbortedException when a limit has been passed.
+     */
+    public void check(long states, long startTime) throws SearchAbortedException{
+        check(states, 0, startTime);
+    }
+
+    /*
+    As above, also checking the estimated bytes of the search against the memory budget
+     */
+    public void check(long states, long bytes, long startTime) throws SearchAbortedException{
+        if(maxStates > 0 && states > maxStates){
+            throw new SearchAbortedException(SearchAbortedException.Reason.STATES, "more than " + maxStates + " states stored");
+        }
+        if(exceedsBytes(bytes)){
+            throw new SearchAbortedException(SearchAbortedException.Reason.MEMORY, "more than " + maxBytes + " bytes of search data");
+        }
+        if(maxMillis > 0 && System.currentTimeMillis() - startTime > maxMillis){
+            throw new SearchAbortedException(SearchAbortedException.Reason.TIME, "running for more than " + maxMillis + " ms");
+        }
+        if(Thread.currentThread().isInterrupted()){
+            throw new SearchAbortedException(SearchAbortedException.Reason.CANCELLED, "search interrupted");
+        }
+    }
+
+    public long getMaxStates(){
+        return maxStates;
+    }
+
+    public long getMaxMillis(){
+        return maxMillis;
+    }
+
+    public long getMaxBytes(){
+        return maxBytes;
+    }
+
+    public long getMaxOffHeapBytes(){
+        return maxOffHeapBytes;
+    }
+
+    public boolean exceedsBytes(long bytes){
+        return maxBytes > 0 && bytes > maxBytes;
+    }
+
+    public boolean exceedsOffHeapBytes(long bytes){
+        return maxOffHeapBytes > 0 && bytes > maxOffHeapBytes;
+    }
+}
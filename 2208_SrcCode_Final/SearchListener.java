@@ -0,0 +1,17 @@
+/**
+ * AUTHOR: Roberto J Gregoratti - rjg1g12@ecs.soton.ac.uk , University of Southampton ECS
+ * PROJECT: COMP2208 Search Methods assignment (BlocksWorld coursework)
+ * VERSION: v1.0
+ * DATE: Jan 2014
+ * CLASS: SearchListener (receives the metrics of every search of a BlocksWorld)
+ */
+
+/*
+Interface to be notified of the SearchMetrics of every search completed by a BlocksWorld (see addSearchListener()).
+It is called on the thread that ran the search.
+ */
+
+public interface SearchListener {
+
+    void searchFinished(SearchMetrics metrics);
+}
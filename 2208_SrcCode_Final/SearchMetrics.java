@@ -0,0 +1,239 @@
+/**
+ * AUTHOR: Roberto J Gregoratti - rjg1g12@ecs.soton.ac.uk , University of Southampton ECS
+ * PROJECT: COMP2208 Search Methods assignment (BlocksWorld coursework)
+ * VERSION: v1.0
+ * DATE: Jan 2014
+ * CLASS: SearchMetrics (figures collected while running one search)
+ */
+
+/*
+This class holds the figures of one search run: nodes expanded and generated, duplicates rejected, peak sizes of
+the open and closed lists, an estimate of the bytes retained, and the time spent generating successors, evaluating
+the heuristic and testing for the goal. It is filled in by the searches of BlocksWorld, printed as a CSV row by
+printResults() and passed to the SearchListeners of the world.
+The three timings are sampled to keep the instrumentation cheap: one call in SAMPLE_RATE is timed with
+System.nanoTime and counted SAMPLE_RATE times, so they are estimates (exact on average over many calls).
+A SearchMetrics object belongs to one search and is not thread-safe. It also emits the search's JFR events: a
+SearchStartEvent when created, a SearchEndEvent from then to finish(), and a FrontierSampleEvent every
+FRONTIER_SAMPLE_INTERVAL calls to open().
+ */
+
+public class SearchMetrics {
+
+    public static final int SUCCESSORS = 0;         //kinds of timed sections
+    public static final int HEURISTIC = 1;
+    public static final int GOAL_TEST = 2;
+
+    public static final int SAMPLE_RATE = 16;       //power of two
+    public static final int FRONTIER_SAMPLE_INTERVAL = 4096;       //power of two
+
+    public static final String CSV_HEADER = "search,grid,depth,visited,time_ms,peak_heap,probes_per_sec,expanded,generated,"
+            + "duplicates,peak_open,peak_closed,estimated_bytes,successor_ns,heuristic_ns,goal_test_ns,threads,speedup";
+
+    private final String search;
+    private final int gridDimension;
+    private final long[] calls = new long[3];
+    private final long[] nanos = new long[3];
+
+    private long expanded;
+    private long generated;
+    private long duplicates;
+    private int peakOpen;
+    private int peakClosed;
+    private long estimatedBytes;
+
+    private int depth = -1;             //set by finish()
+    private int visited;
+    private long probes;
+    private double time;                //ms
+    private long peakHeap;
+    private int threads = 1;
+    private double speedup;
+
+    private long openCalls;
+    private String outcome;             //set by aborted(), otherwise from the solution passed to finish()
+    private SearchEndEvent event;       //null once finished
+
+    public SearchMetrics(String search, int gridDimension){
+        this.search = search;
+        this.gridDimension = gridDimension;
+
+        SearchStartEvent start = new SearchStartEvent();
+        if(start.isEnabled()){
+            start.search = search;
+            start.gridDimension = gridDimension;
+            start.commit();
+        }
+        event = new SearchEndEvent();
+        event.begin();
+    }
+
+    /*
+    Methods to time a section: begin() returns the start time if this call is sampled (0 otherwise), and the value
+    has to be passed back to end()
+     */
+    public long begin(int kind){
+        return (++calls[kind] & (SAMPLE_RATE - 1)) == 0 ? System.nanoTime() : 0;
+    }
+
+    public void end(int kind, long begin){
+        if(begin != 0) nanos[kind] += (System.nanoTime() - begin) * SAMPLE_RATE;
+    }
+
+    public void expanded(){
+        expanded++;
+    }
+
+    public void generated(int count){
+        generated += count;
+    }
+
+    public void duplicate(){
+        duplicates++;
+    }
+
+    public void addCounts(long expanded, long generated, long duplicates){     //for searches counting on their own
+        this.expanded += expanded;
+        this.generated += generated;
+        this.duplicates += duplicates;
+    }
+
+    public void open(int size){         //current size of the open list (frontier), to keep the peak
+        if(size > peakOpen) peakOpen = size;
+        if((++openCalls & (FRONTIER_SAMPLE_INTERVAL - 1)) == 0) sampleFrontier(size);
+    }
+
+    private void sampleFrontier(int size){
+        FrontierSampleEvent sample = new FrontierSampleEvent();
+        if(sample.isEnabled()){
+            sample.search = search;
+            sample.gridDimension = gridDimension;
+            sample.open = size;
+            sample.peakClosed = peakClosed;
+            sample.expanded = expanded;
+            sample.generated = generated;
+            sample.commit();
+        }
+    }
+
+    public void closed(int size){
+        if(size > peakClosed) peakClosed = size;
+    }
+
+    public void setEstimatedBytes(long bytes){
+        if(bytes > estimatedBytes) estimatedBytes = bytes;
+    }
+
+    public void setParallelism(int threads, double speedup){
+        this.threads = threads;
+        this.speedup = speedup;
+    }
+
+    public void aborted(SearchAbortedException.Reason reason){      //the search is stopped by its limits, before finish()
+        this.outcome = reason.name();
+    }
+
+    /*
+    Method called when the search ends with a solution (null if none)
+     */
+    public void finish(Node solution, int visited, long probes, double time){
+        this.depth = solution == null ? -1 : solution.getDepth();
+        this.visited = visited;
+        this.probes = probes;
+        this.time = time;
+        this.peakHeap = BlocksWorld.peakHeap();
+
+        if(event == null) return;           //finished already
+        event.end();
+        if(event.shouldCommit()){
+            event.search = search;
+            event.gridDimension = gridDimension;
+            event.outcome = outcome != null ? outcome : solution == null ? "NO_SOLUTION" : "SOLVED";
+            event.depth = depth;
+            event.visited = visited;
+            event.expanded = expanded;
+            event.generated = generated;
+            event.duplicates = duplicates;
+            event.peakOpen = peakOpen;
+            event.peakClosed = peakClosed;
+            event.estimatedBytes = estimatedBytes;
+            event.commit();
+        }
+        event = null;
+    }
+
+    public String toCsv(){
+        return search + "," + gridDimension + "," + depth + "," + visited + "," + time + "," + peakHeap + ","
+                + BlocksWorld.probesPerSecond(probes, time) + "," + expanded + "," + generated + "," + duplicates + ","
+                + peakOpen + "," + peakClosed + "," + estimatedBytes + "," + nanos[SUCCESSORS] + "," + nanos[HEURISTIC] + ","
+                + nanos[GOAL_TEST] + "," + threads + "," + speedup;
+    }
+
+    public String getSearch(){
+        return search;
+    }
+
+    public int getGridDimension(){
+        return gridDimension;
+    }
+
+    public int getDepth(){
+        return depth;
+    }
+
+    public int getVisited(){
+        return visited;
+    }
+
+    public long getExpanded(){
+        return expanded;
+    }
+
+    public long getGenerated(){
+        return generated;
+    }
+
+    public long getDuplicates(){
+        return duplicates;
+    }
+
+    public int getPeakOpen(){
+        return peakOpen;
+    }
+
+    public int getPeakClosed(){
+        return peakClosed;
+    }
+
+    public long getEstimatedBytes(){
+        return estimatedBytes;
+    }
+
+    public long getNanos(int kind){
+        return nanos[kind];
+    }
+
+    public long getProbes(){
+        return probes;
+    }
+
+    public double getTime(){
+        return time;
+    }
+
+    void clearPeakHeap(){               //peak_heap not measured (searches running concurrently)
+        peakHeap = 0;
+    }
+
+    public long getPeakHeap(){
+        return peakHeap;
+    }
+
+    public int getThreads(){
+        return threads;
+    }
+
+    public double getSpeedup(){
+        return speedup;
+    }
+}
@@ -0,0 +1,32 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * AUTHOR: Roberto J Gregoratti - rjg1g12@ecs.soton.ac.uk , University of Southampton ECS
+ * PROJECT: COMP2208 Search Methods assignment (BlocksWorld coursework)
+ * VERSION: v1.0
+ * DATE: Jan 2014
+ * CLASS: SearchStartEvent (Java Flight Recorder event, a search starting)
+ */
+
+/*
+This class is the JFR event committed when a search creates its SearchMetrics, ie when it starts. With the matching
+SearchEndEvent, a recording shows which searches were running when a run stalled, even the ones that never printed
+a row. Recording them: java -XX:StartFlightRecording:filename=run.jfr TestHarness (the BlocksWorld events are
+enabled by default except CheckMovesEvent and StateCreatedEvent, see those).
+ */
+
+@Name("blocksworld.SearchStart")
+@Label("Search Start")
+@Category("BlocksWorld")
+@Description("A search of BlocksWorld starting")
+public class SearchStartEvent extends jdk.jfr.Event {
+
+    @Label("Search")
+    String search;
+
+    @Label("Grid Dimension")
+    int gridDimension;
+}
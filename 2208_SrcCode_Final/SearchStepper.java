@@ -0,0 +1,173 @@
+/**
+ * AUTHOR: Roberto J Gregoratti - rjg1g12@ecs.soton.ac.uk , University of Southampton ECS
+ * PROJECT: COMP2208 Search Methods assignment (BlocksWorld coursework)
+ * VERSION: v1.0
+ * DATE: Jan 2014
+ * CLASS: SearchStepper (a search run a slice at a time, returned by BlocksWorld.stepper())
+ */
+
+/*
+This class is a search that runs in slices instead of one blocking call: the frontier and closed list are kept in the
+object between two calls to step(), which expands at most a given number of nodes or runs for at most a given time,
+then returns. A caller can so interleave many searches on a few threads (eg one slice each in turn), look at their
+progress between slices, and cancel the ones it no longer needs, from any thread. The subclasses are the stepped
+versions of BlocksWorld's BFS, DFS, IDS and A*, each expanding one node per call to advance() and testing the nodes
+for the GoalTest when expanded.
+Once solved, the solution is printed as a row by the world like the other searches; its time is the time spent in
+step(), not the time since the stepper was created, and so is the time checked against the world's limits. A search
+passing a limit stops with the ABORTED status (the exception is kept, see getFailure()) instead of throwing.
+ */
+
+public abstract class SearchStepper {
+
+    public enum Status {
+        RUNNING,            //more slices needed
+        SOLVED,
+        NO_SOLUTION,        //the reachable space was explored without finding the goal
+        ABORTED,            //a limit of the world was passed
+        CANCELLED
+    }
+
+    private static final int CHECK_INTERVAL = 16;       //expansions between two looks at the clock and the limits
+
+    protected final BlocksWorld world;
+    protected final Node start;
+    protected final int gridDimension;
+    protected final GoalTest goal;
+    protected final SearchMetrics metrics;
+    protected final SuccessorBuffer successors = new SuccessorBuffer();
+
+    private volatile boolean cancelled;
+    private volatile Status status = Status.RUNNING;
+    private Node solution;
+    private SearchAbortedException failure;
+    private volatile long busyNanos;        //time spent in step()
+    private volatile long expansions;       //calls to advance()
+    private int slices;
+
+    SearchStepper(BlocksWorld world, Node start, GoalTest goal, String search){
+        this.world = world;
+        this.start = start;
+        this.gridDimension = start.getState().gridDimension;
+        this.goal = goal;
+        this.metrics = new SearchMetrics(search, gridDimension);
+    }
+
+    /*
+    Method to run the search for at most maxExpansions nodes and at most maxMicros microseconds (checked every few
+    expansions, so a slice may run a little longer), returns the status at the end of the slice. Does nothing if
+    the search is over.
+     */
+    public synchronized Status step(long maxExpansions, long maxMicros) throws Exception{
+        if(status != Status.RUNNING) return status;
+        long begin = System.nanoTime();
+        long deadline = begin + maxMicros * 1000;
+        slices++;
+
+        Status result = Status.RUNNING;
+        try{
+            for(long done = 0; done < maxExpansions && result == Status.RUNNING; done++){
+                if(cancelled){
+                    result = Status.CANCELLED;
+                    break;
+                }
+                if((expansions + 1) % CHECK_INTERVAL == 0){          //counted once advance() has run
+                    if(done > 0 && System.nanoTime() >= deadline) break;       //a slice always makes progress
+                    long busyMillis = (busyNanos + System.nanoTime() - begin) / 1000000;
+                    world.checkLimits(metrics, storedStates(), bytes(), System.currentTimeMillis() - busyMillis);
+                }
+                result = advance();
+                expansions++;
+            }
+        }
+        catch(SearchAbortedException e){
+            failure = e;
+            result = Status.ABORTED;
+        }
+        finally{
+            busyNanos += System.nanoTime() - begin;
+        }
+
+        if(result == Status.SOLVED){
+            metrics.closed(storedStates());
+            metrics.setEstimatedBytes(bytes());
+            metrics.finish(solution, visited(), probes(), busyNanos / 1000000.0);
+            world.printResults(metrics);
+        }
+        if(result == Status.RUNNING && cancelled) result = Status.CANCELLED;      //cancelled at the end of the slice
+        status = result;
+        return result;
+    }
+
+    /*
+    Method to stop the search, from any thread: a running slice stops at its next expansion, and the next calls to
+    step() return CANCELLED
+     */
+    public void cancel(){
+        cancelled = true;
+        if(status == Status.RUNNING) status = Status.CANCELLED;
+    }
+
+    /*
+    Method expanding the next node of the search (or testing it for the goal), returns SOLVED (after calling
+    solved()), NO_SOLUTION when there is nothing left to expand, RUNNING otherwise
+     */
+    protected abstract Status advance() throws SearchAbortedException;
+
+    protected Status solved(Node solution){
+        this.solution = solution;
+        return Status.SOLVED;
+    }
+
+    protected abstract int storedStates();          //states in the closed list or visited table
+
+    protected abstract int frontierSize();          //nodes waiting to be expanded
+
+    protected abstract long bytes();                //estimated memory of the search's tables
+
+    protected int visited(){                        //visited column of the results row
+        return storedStates();
+    }
+
+    protected abstract long probes();
+
+    public Status getStatus(){
+        return status;
+    }
+
+    public boolean isDone(){
+        return status != Status.RUNNING;
+    }
+
+    public Node getSolution(){                      //null unless SOLVED
+        return solution;
+    }
+
+    public SearchAbortedException getFailure(){     //limit passed, null unless ABORTED
+        return failure;
+    }
+
+    public SearchMetrics getMetrics(){              //counters so far, complete once solved
+        return metrics;
+    }
+
+    public long getExpansions(){
+        return expansions;
+    }
+
+    public long getBusyMicros(){
+        return busyNanos / 1000;
+    }
+
+    public synchronized int getSlices(){
+        return slices;
+    }
+
+    public synchronized int getFrontierSize(){
+        return frontierSize();
+    }
+
+    public synchronized int getStoredStates(){
+        return storedStates();
+    }
+}
@@ -0,0 +1,22 @@
+/**
+ * AUTHOR: Roberto J Gregoratti - rjg1g12@ecs.soton.ac.uk , University of Southampton ECS
+ * PROJECT: COMP2208 Search Methods assignment (BlocksWorld coursework)
+ * VERSION: v1.0
+ * DATE: Jan 2014
+ * CLASS: SearchStrategy (enum of the searches that can be run through BlocksWorld.solve())
+ */
+
+/*
+This enum lists the searches of BlocksWorld, so that callers (eg the BatchSolver) can choose one by value.
+ */
+
+public enum SearchStrategy {
+    BFS,
+    EXTERNAL_BFS,
+    DFS,
+    IDS,
+    ASTAR,
+    IDASTAR,
+    BIDIRECTIONAL,
+    TABLE
+}
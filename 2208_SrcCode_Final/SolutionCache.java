@@ -0,0 +1,233 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * AUTHOR: Roberto J Gregoratti - rjg1g12@ecs.soton.ac.uk , University of Southampton ECS
+ * PROJECT: COMP2208 Search Methods assignment (BlocksWorld coursework)
+ * VERSION: v1.0
+ * DATE: Jan 2014
+ * CLASS: SolutionCache (bounded LRU cache of solutions, used by BlocksWorld.solve())
+ */
+
+/*
+This class caches the solutions found by the searches, so that a problem already solved (start, finish, grid size
+and strategy) is answered without searching. Entries are evicted in least-recently-used order once the capacity is
+reached (a LinkedHashMap in access order), and hits and misses are counted.
+Problems are stored in a canonical form: of the 8 symmetries of the square grid (rotations and reflections), the one
+giving the smallest packed start and finish is applied, and the moves are stored in that frame. A problem and its
+mirror images or rotations then share one entry; the cached moves are mapped back on a hit. Translations are not
+used: the agent cannot leave the grid, so a shifted configuration is a different problem with possibly a different
+solution length.
+The cache can be saved to and loaded from a text file, one entry per line.
+ */
+
+public class SolutionCache {
+
+    private static final Move[] MOVES = Move.values();
+    private static final int SYMMETRIES = 8;
+
+    private final int capacity;
+    private final LinkedHashMap<Key,String> entries;       //canonical problem -> move letters in the canonical frame
+    private long hits;
+    private long misses;
+
+    public SolutionCache(final int capacity){
+        if(capacity < 1){
+            throw new IllegalArgumentException("Error: the cache must hold at least one solution");
+        }
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<Key,String>(16, 0.75f, true){
+            protected boolean removeEldestEntry(Map.Entry<Key,String> eldest){
+                return size() > capacity;
+            }
+        };
+    }
+
+    /*
+    Method returning the cached moves from start to finish for the given strategy, in the frame of the passed
+    states, or null (a miss) if the problem has not been solved yet
+     */
+    public synchronized Move[] get(State start, State finish, SearchStrategy strategy){
+        int symmetry = canonicalSymmetry(start, finish);
+        String letters = entries.get(key(start, finish, strategy, symmetry));
+        if(letters == null){
+            misses++;
+            return null;
+        }
+        hits++;
+        Move[] moves = new Move[letters.length()];
+        for(int i = 0; i < moves.length; i++){
+            moves[i] = inverse(Move.fromLetter(letters.substring(i, i + 1)), symmetry);
+        }
+        return moves;
+    }
+
+    /*
+    Method to store the solution found by a search, given as its last node (the moves are read from the chain)
+     */
+    public synchronized void put(State start, State finish, SearchStrategy strategy, Node solution){
+        int symmetry = canonicalSymmetry(start, finish);
+        StringBuilder letters = new StringBuilder();
+        for(String letter : solution.displaySolution()){
+            letters.append(transform(Move.fromLetter(letter), symmetry).getLetter());
+        }
+        entries.put(key(start, finish, strategy, symmetry), letters.toString());
+    }
+
+    public synchronized int size(){
+        return entries.size();
+    }
+
+    public int getCapacity(){
+        return capacity;
+    }
+
+    public synchronized long getHits(){
+        return hits;
+    }
+
+    public synchronized long getMisses(){
+        return misses;
+    }
+
+    public synchronized void clear(){
+        entries.clear();
+        hits = 0;
+        misses = 0;
+    }
+
+    /*
+    Methods to save the entries to a file (least recently used first, so that loading keeps the order) and to load
+    them back, one "gridDimension strategy start finish moves" line per entry, states in hex
+     */
+    public synchronized void save(File file) throws IOException{
+        PrintStream out = new PrintStream(file);
+        try{
+            for(Map.Entry<Key,String> entry : entries.entrySet()){
+                Key key = entry.getKey();
+                out.println(key.gridDimension + " " + key.strategy + " " + Long.toHexString(key.start) + " "
+                        + Long.toHexString(key.finish) + " " + entry.getValue());
+            }
+        }
+        finally{
+            out.close();
+        }
+    }
+
+    public synchronized void load(File file) throws IOException{
+        BufferedReader in = new BufferedReader(new FileReader(file));
+        try{
+            String line;
+            while((line = in.readLine()) != null){
+                String[] fields = line.trim().split(" ", -1);
+                if(fields.length != 5){
+                    throw new IOException("Error: malformed cache entry '" + line + "' in " + file);
+                }
+                entries.put(new Key(Integer.parseInt(fields[0]), SearchStrategy.valueOf(fields[1]),
+                        Long.parseUnsignedLong(fields[2], 16), Long.parseUnsignedLong(fields[3], 16)), fields[4]);
+            }
+        }
+        finally{
+            in.close();
+        }
+    }
+
+    private static Key key(State start, State finish, SearchStrategy strategy, int symmetry){
+        int n = start.gridDimension;
+        return new Key(n, strategy, transform(start.getPacked(), symmetry, n), transform(finish.getPacked(), symmetry, n));
+    }
+
+    /*
+    Returns the symmetry giving the smallest (start, finish) pair, compared as unsigned packed values
+     */
+    static int canonicalSymmetry(State start, State finish){
+        int n = start.gridDimension;
+        int best = 0;
+        long bestStart = start.getPacked();
+        long bestFinish = finish.getPacked();
+        for(int symmetry = 1; symmetry < SYMMETRIES; symmetry++){
+            long s = transform(start.getPacked(), symmetry, n);
+            int compare = Long.compareUnsigned(s, bestStart);
+            if(compare > 0) continue;
+            long f = transform(finish.getPacked(), symmetry, n);
+            if(compare < 0 || Long.compareUnsigned(f, bestFinish) < 0){
+                best = symmetry;
+                bestStart = s;
+                bestFinish = f;
+            }
+        }
+        return best;
+    }
+
+    /*
+    Returns the packed configuration with every cell moved by the given symmetry: bit 0 mirrors x, bit 1 mirrors y,
+    bit 2 swaps x and y (applied last)
+     */
+    static long transform(long packed, int symmetry, int n){
+        long result = 0;
+        for(int tile = State.A; tile <= State.AGENT; tile++){
+            int cell = State.cell(packed, tile);
+            int x = cell % n;
+            int y = cell / n;
+            if((symmetry & 1) != 0) x = n - 1 - x;
+            if((symmetry & 2) != 0) y = n - 1 - y;
+            if((symmetry & 4) != 0){
+                int swap = x;
+                x = y;
+                y = swap;
+            }
+            result |= (long) (y * n + x) << (tile << 4);
+        }
+        return result;
+    }
+
+    static Move transform(Move move, int symmetry){
+        boolean horizontal = move == Move.LEFT || move == Move.RIGHT;
+        boolean positive = move == Move.RIGHT || move == Move.DOWN;        //towards larger x or y
+        if((symmetry & 1) != 0 && horizontal) positive = !positive;
+        if((symmetry & 2) != 0 && !horizontal) positive = !positive;
+        if((symmetry & 4) != 0) horizontal = !horizontal;
+        if(horizontal) return positive ? Move.RIGHT : Move.LEFT;
+        return positive ? Move.DOWN : Move.UP;
+    }
+
+    static Move inverse(Move move, int symmetry){
+        for(Move candidate : MOVES){
+            if(transform(candidate, symmetry) == move) return candidate;
+        }
+        throw new IllegalStateException("Error: symmetry " + symmetry + " is not a bijection on moves");
+    }
+
+    /*
+    Canonical problem, key of the entries
+     */
+    private static final class Key {
+        final int gridDimension;
+        final SearchStrategy strategy;
+        final long start;
+        final long finish;
+
+        Key(int gridDimension, SearchStrategy strategy, long start, long finish){
+            this.gridDimension = gridDimension;
+            this.strategy = strategy;
+            this.start = start;
+            this.finish = finish;
+        }
+
+        public boolean equals(Object o){
+            if(!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return gridDimension == other.gridDimension && strategy == other.strategy && start == other.start
+                    && finish == other.finish;
+        }
+
+        public int hashCode(){
+            return (Long.hashCode(start) * 31 + Long.hashCode(finish)) * 31 + gridDimension * 7 + strategy.ordinal();
+        }
+    }
+}
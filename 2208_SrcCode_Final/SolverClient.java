@@ -0,0 +1,160 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * AUTHOR: Roberto J Gregoratti - rjg1g12@ecs.soton.ac.uk , University of Southampton ECS
+ * PROJECT: COMP2208 Search Methods assignment (BlocksWorld coursework)
+ * VERSION: v1.0
+ * DATE: Jan 2014
+ * CLASS: SolverClient (client of the SolverServer, and a small load generator for it)
+ */
+
+/*
+This class sends problems to a SolverServer on the loopback interface and reads its answers back as BatchResults.
+Run on its own, it sends a number of requests from several threads: the TestHarness layout of the given size and
+random scrambles of its goal, drawn from a small pool so that identical requests are in flight together and get
+coalesced, then prints the server's /stats (latency percentiles, requests coalesced, cache hits and misses).
+
+Usage: java SolverClient [-port 8208] [-threads 8] [-requests 200] [-size 5] [-distinct 16] [-strategy ASTAR]
+ */
+
+public class SolverClient {
+
+    private final String address;
+
+    public SolverClient(int port){
+        this.address = "http://127.0.0.1:" + port;
+    }
+
+    /*
+    Method to solve a problem on the server, blocking until answered. Returns the result with the given id, or
+    throws an IOException if the server rejected the request (busy or bad request) or could not be reached.
+     */
+    public BatchResult solve(long id, State start, State finish, SearchStrategy strategy) throws IOException{
+        BatchInstance instance = new BatchInstance(id, start, finish, strategy);
+        Map<String,String> reply = get("/solve?size=" + start.gridDimension + "&start=" + cells(start)
+                + "&goal=" + cells(finish) + "&strategy=" + strategy);
+
+        String moves = reply.get("moves");
+        return new BatchResult(instance, BatchResult.Status.valueOf(reply.get("status")),
+                moves == null ? null : moves.isEmpty() ? new String[0] : moves.split(","),
+                Long.parseLong(reply.get("time")), reply.get("message"));
+    }
+
+    public Map<String,String> stats() throws IOException{
+        return get("/stats");
+    }
+
+    static String cells(State state){           //"xa,ya,xb,yb,xc,yc,xAgent,yAgent"
+        StringBuilder text = new StringBuilder();
+        for(int tile = State.A; tile <= State.AGENT; tile++){
+            if(tile > State.A) text.append(',');
+            text.append(state.getXPos(tile)).append(',').append(state.getYPos(tile));
+        }
+        return text.toString();
+    }
+
+    /*
+    Method sending a GET request, returns the "key value" lines of the answer in order
+     */
+    private Map<String,String> get(String path) throws IOException{
+        HttpURLConnection connection = (HttpURLConnection) new URL(address + path).openConnection();
+        try{
+            int code = connection.getResponseCode();
+            InputStream in = code == HttpURLConnection.HTTP_OK ? connection.getInputStream() : connection.getErrorStream();
+            Map<String,String> reply = new LinkedHashMap<String,String>();
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            try{
+                String line;
+                while((line = reader.readLine()) != null){
+                    int space = line.indexOf(' ');
+                    if(space < 0) reply.put(line, "");
+                    else reply.put(line.substring(0, space), line.substring(space + 1));
+                }
+            }
+            finally{
+                reader.close();
+            }
+            if(code != HttpURLConnection.HTTP_OK){
+                throw new IOException("Error: server answered " + code + " (" + reply.get("error") + ")");
+            }
+            return reply;
+        }
+        finally{
+            connection.disconnect();
+        }
+    }
+
+    public static void main(String[] args) throws Exception{
+        int port = SolverServer.DEFAULT_PORT;
+        int threads = 8;
+        int requests = 200;
+        int size = 5;
+        int distinct = 16;
+        SearchStrategy strategy = SearchStrategy.ASTAR;
+
+        for(int i = 0; i < args.length; i++){
+            if(args[i].equals("-port")) port = Integer.parseInt(args[++i]);
+            else if(args[i].equals("-threads")) threads = Integer.parseInt(args[++i]);
+            else if(args[i].equals("-requests")) requests = Integer.parseInt(args[++i]);
+            else if(args[i].equals("-size")) size = Integer.parseInt(args[++i]);
+            else if(args[i].equals("-distinct")) distinct = Integer.parseInt(args[++i]);
+            else if(args[i].equals("-strategy")) strategy = SearchStrategy.valueOf(args[++i]);
+            else throw new IllegalArgumentException("Error: unknown option " + args[i]);
+        }
+
+        final State finish = new State(1, size - 3, 1, size - 2, 1, size - 1, size - 1, size - 1, size);
+        final State[] starts = new State[Math.max(distinct, 1)];
+        starts[0] = new State(0, size - 1, 1, size - 1, 2, size - 1, size - 1, size - 1, size);      //TestHarness layout
+        Random random = new Random(size);
+        SuccessorBuffer successors = new SuccessorBuffer();
+        for(int i = 1; i < starts.length; i++){             //random walks from the goal
+            long packed = finish.getPacked();
+            for(int step = 0; step < 4 * size * size; step++){
+                int count = State.expand(packed, size, null, successors);
+                packed = successors.getState(random.nextInt(count));
+            }
+            starts[i] = new State(packed, size);
+        }
+
+        final SolverClient client = new SolverClient(port);
+        final SearchStrategy chosen = strategy;
+        final AtomicLong failures = new AtomicLong();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        long start_time = System.currentTimeMillis();
+        for(int i = 0; i < requests; i++){
+            final int id = i;
+            final State start = starts[random.nextInt(starts.length)];
+            pool.execute(() -> {
+                try{
+                    BatchResult result = client.solve(id, start, finish, chosen);
+                    if(result.getStatus() != BatchResult.Status.SOLVED) failures.incrementAndGet();
+                }
+                catch(IOException e){
+                    System.out.println("Request " + id + " failed, " + e.getMessage());
+                    failures.incrementAndGet();
+                }
+            });
+        }
+        pool.shutdown();
+        pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        long time = System.currentTimeMillis() - start_time;
+
+        System.out.println(requests + " requests in " + time + "ms, " + failures.get() + " not solved");
+        for(Map.Entry<String,String> entry : client.stats().entrySet()){
+            System.out.println(entry.getKey() + ": " + entry.getValue());
+        }
+    }
+}
@@ -0,0 +1,297 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * AUTHOR: Roberto J Gregoratti - rjg1g12@ecs.soton.ac.uk , University of Southampton ECS
+ * PROJECT: COMP2208 Search Methods assignment (BlocksWorld coursework)
+ * VERSION: v1.0
+ * DATE: Jan 2014
+ * CLASS: SolverServer (long-running solver answering HTTP requests on the loopback interface)
+ */
+
+/*
+This class keeps a JVM running and solves the problems sent to it over HTTP on the loopback interface, so that the
+JIT-compiled searches, the SolutionCache and the retrograde tables loaded by RetrogradeTable.find() stay warm across
+requests instead of being rebuilt by every TestHarness run. Requests are solved by a BatchSolver (one BlocksWorld per
+request, with the server's SearchLimits) on a fixed pool of workers with a bounded queue; a request arriving with
+the queue full is answered 503 rather than queued without bound. Identical requests in flight (same grid, start,
+finish and strategy) are coalesced: the later ones wait on the CompletableFuture of the first and share its result.
+The HTTP threads never wait for a search, responses are sent from the worker completing it.
+The latency of every request (received to answered, coalesced or not) is kept for the last LATENCY_SAMPLES
+requests, the percentiles are reported by /stats.
+
+Requests (plain text answers, one "key value" pair per line, see SolverClient):
+    GET /solve?size=4&start=0,3,1,3,2,3,3,3&goal=1,1,1,2,1,3,3,3&strategy=ASTAR
+        (xa,ya,xb,yb,xc,yc,xAgent,yAgent; strategy is a SearchStrategy, ASTAR if not given)
+    GET /stats
+Every worker keeps one bitmap closed set for its BFS and DFS searches (see BlocksWorld.closedSet()), up to 524MB
+of mapped file on 16x16 grids; -offheap bounds it, larger grids then use hashed closed sets on the heap.
+Usage: java SolverServer [-port 8208] [-threads n] [-queue n] [-cache entries] [-states n] [-time ms] [-offheap bytes]
+                         [-out results.csv]
+ */
+
+public class SolverServer {
+
+    public static final int DEFAULT_PORT = 8208;
+    static final int LATENCY_SAMPLES = 4096;        //latencies kept for the percentiles (the last ones)
+
+    private final HttpServer server;
+    private final ThreadPoolExecutor workers;
+    private final ExecutorService listeners;        //threads reading the requests, a few are enough
+    private final BatchSolver solver;
+    private final SolutionCache cache;
+    private final ConcurrentHashMap<String,CompletableFuture<BatchResult>> inFlight = new ConcurrentHashMap<String,CompletableFuture<BatchResult>>();
+
+    private final AtomicLong ids = new AtomicLong();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong dispatched = new AtomicLong();     //requests given to a worker (searched or answered by the cache)
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final long[] latencies = new long[LATENCY_SAMPLES];       //microseconds, ring buffer
+    private long latencyCount;
+
+    /*
+    Constructor for a server on the given port of the loopback interface (0 for any free port, see getPort()), with
+    threads workers and at most queueSize searches waiting for one. The cache and sink may be null.
+     */
+    public SolverServer(int port, int threads, int queueSize, SearchLimits limits, SolutionCache cache, ResultSink sink) throws IOException{
+        this.cache = cache;
+        this.solver = new BatchSolver(threads, limits, sink);
+        solver.setCache(cache);
+        this.workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(queueSize));
+        this.listeners = Executors.newFixedThreadPool(2);
+
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 64);
+        server.setExecutor(listeners);
+        server.createContext("/solve", this::handleSolve);
+        server.createContext("/stats", this::handleStats);
+    }
+
+    public void start(){
+        server.start();
+    }
+
+    /*
+    Method to stop answering, waiting for the searches running or queued to be answered
+     */
+    public void stop() throws InterruptedException{
+        workers.shutdown();
+        workers.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        server.stop(0);
+        listeners.shutdown();
+    }
+
+    public int getPort(){
+        return server.getAddress().getPort();
+    }
+
+    private void handleSolve(final HttpExchange exchange) throws IOException{
+        final long received = System.nanoTime();
+        requests.incrementAndGet();
+
+        final BatchInstance instance;
+        try{
+            instance = parse(parseQuery(exchange.getRequestURI().getRawQuery()), ids.incrementAndGet());
+        }
+        catch(RuntimeException e){          //missing or malformed parameters, or a bad configuration for State
+            send(exchange, 400, "error " + e.getMessage() + "\n", received);
+            return;
+        }
+
+        final String key = key(instance);
+        final CompletableFuture<BatchResult> created = new CompletableFuture<BatchResult>();
+        CompletableFuture<BatchResult> future = inFlight.putIfAbsent(key, created);
+        final boolean shared = future != null;
+        if(shared) coalesced.incrementAndGet();
+        else{
+            future = created;
+            try{
+                workers.execute(() -> {
+                    dispatched.incrementAndGet();
+                    try{
+                        created.complete(solver.solve(instance));
+                    }
+                    catch(Throwable t){         //eg out of memory, the waiting requests still get an answer
+                        created.completeExceptionally(t);
+                    }
+                    finally{
+                        inFlight.remove(key, created);
+                    }
+                });
+            }
+            catch(RejectedExecutionException e){
+                rejected.incrementAndGet();
+                inFlight.remove(key, created);
+                created.completeExceptionally(e);
+            }
+        }
+
+        future.whenComplete((result, failure) -> {
+            try{
+                if(failure instanceof RejectedExecutionException) send(exchange, 503, "error solver busy\n", received);
+                else if(failure != null) send(exchange, 500, "error " + failure + "\n", received);
+                else send(exchange, 200, format(result, shared), received);
+            }
+            catch(IOException e){
+                System.out.println("Error: could not answer request " + instance.getId() + ", " + e.getMessage());
+            }
+        });
+    }
+
+    private void handleStats(HttpExchange exchange) throws IOException{
+        long[] sorted;
+        synchronized(latencies){
+            sorted = Arrays.copyOf(latencies, (int) Math.min(latencyCount, LATENCY_SAMPLES));
+        }
+        Arrays.sort(sorted);
+
+        StringBuilder text = new StringBuilder();
+        text.append("requests ").append(requests.get()).append('\n');
+        text.append("dispatched ").append(dispatched.get()).append('\n');
+        text.append("coalesced ").append(coalesced.get()).append('\n');
+        text.append("rejected ").append(rejected.get()).append('\n');
+        text.append("inFlight ").append(inFlight.size()).append('\n');
+        text.append("queued ").append(workers.getQueue().size()).append('\n');
+        if(cache != null){
+            text.append("cacheSize ").append(cache.size()).append('\n');
+            text.append("cacheHits ").append(cache.getHits()).append('\n');
+            text.append("cacheMisses ").append(cache.getMisses()).append('\n');
+        }
+        text.append("samples ").append(sorted.length).append('\n');
+        text.append("p50Ms ").append(percentile(sorted, 0.50) / 1000.0).append('\n');
+        text.append("p90Ms ").append(percentile(sorted, 0.90) / 1000.0).append('\n');
+        text.append("p99Ms ").append(percentile(sorted, 0.99) / 1000.0).append('\n');
+        text.append("maxMs ").append(sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1000.0).append('\n');
+        send(exchange, 200, text.toString(), -1);
+    }
+
+    /*
+    Method to send a plain text answer and close the exchange, recording the latency of /solve requests (received
+    is the System.nanoTime() the request was read at, -1 for none)
+     */
+    private void send(HttpExchange exchange, int code, String text, long received) throws IOException{
+        byte[] body = text.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(code, body.length);
+        OutputStream out = exchange.getResponseBody();
+        try{
+            out.write(body);
+        }
+        finally{
+            out.close();
+        }
+        if(received >= 0){
+            synchronized(latencies){
+                latencies[(int) (latencyCount++ % LATENCY_SAMPLES)] = (System.nanoTime() - received) / 1000;
+            }
+        }
+    }
+
+    static long percentile(long[] sorted, double fraction){        //nearest rank, 0 when empty
+        if(sorted.length == 0) return 0;
+        int rank = (int) Math.ceil(fraction * sorted.length);
+        return sorted[Math.max(rank, 1) - 1];
+    }
+
+    static String key(BatchInstance instance){
+        return instance.getStart().gridDimension + ":" + Long.toHexString(instance.getStart().getPacked()) + ":"
+                + Long.toHexString(instance.getFinish().getPacked()) + ":" + instance.getStrategy();
+    }
+
+    static String format(BatchResult result, boolean shared){
+        StringBuilder text = new StringBuilder();
+        text.append("status ").append(result.getStatus()).append('\n');
+        text.append("depth ").append(result.getDepth()).append('\n');
+        text.append("time ").append(result.getTime()).append('\n');
+        text.append("coalesced ").append(shared).append('\n');
+        if(result.getPath() != null) text.append("moves ").append(String.join(",", result.getPath())).append('\n');
+        if(result.getMessage() != null) text.append("message ").append(result.getMessage().replace('\n', ' ')).append('\n');
+        return text.toString();
+    }
+
+    static Map<String,String> parseQuery(String query){
+        Map<String,String> parameters = new HashMap<String,String>();
+        if(query == null) return parameters;
+        for(String pair : query.split("&")){
+            int equals = pair.indexOf('=');
+            if(equals > 0) parameters.put(pair.substring(0, equals), pair.substring(equals + 1));
+        }
+        return parameters;
+    }
+
+    static BatchInstance parse(Map<String,String> parameters, long id){
+        String size = parameters.get("size");
+        if(size == null) throw new IllegalArgumentException("Error: size parameter missing");
+        int n = Integer.parseInt(size);
+        String strategy = parameters.get("strategy");
+        return new BatchInstance(id, parseState(parameters.get("start"), n, "start"), parseState(parameters.get("goal"), n, "goal"),
+                strategy == null ? SearchStrategy.ASTAR : SearchStrategy.valueOf(strategy));
+    }
+
+    static State parseState(String cells, int n, String name){     //"xa,ya,xb,yb,xc,yc,xAgent,yAgent"
+        if(cells == null) throw new IllegalArgumentException("Error: " + name + " parameter missing");
+        String[] values = cells.split(",");
+        if(values.length != 8) throw new IllegalArgumentException("Error: " + name + " needs 8 coordinates");
+        int[] c = new int[8];
+        for(int i = 0; i < 8; i++) c[i] = Integer.parseInt(values[i].trim());
+        return new State(c[0], c[1], c[2], c[3], c[4], c[5], c[6], c[7], n);
+    }
+
+    public static void main(String[] args) throws Exception{
+        int port = DEFAULT_PORT;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int queue = 256;
+        int cacheEntries = 100000;
+        int maxStates = 20000000;
+        long maxMillis = 60000;
+        long maxOffHeapBytes = 0;
+        String outFile = null;
+
+        for(int i = 0; i < args.length; i++){
+            if(args[i].equals("-port")) port = Integer.parseInt(args[++i]);
+            else if(args[i].equals("-threads")) threads = Integer.parseInt(args[++i]);
+            else if(args[i].equals("-queue")) queue = Integer.parseInt(args[++i]);
+            else if(args[i].equals("-cache")) cacheEntries = Integer.parseInt(args[++i]);
+            else if(args[i].equals("-states")) maxStates = Integer.parseInt(args[++i]);
+            else if(args[i].equals("-time")) maxMillis = Long.parseLong(args[++i]);
+            else if(args[i].equals("-offheap")) maxOffHeapBytes = Long.parseLong(args[++i]);
+            else if(args[i].equals("-out")) outFile = args[++i];
+            else throw new IllegalArgumentException("Error: unknown option " + args[i]);
+        }
+
+        final ResultSink sink = outFile == null ? null : new AsyncResultSink(new CsvResultSink(new File(outFile)));
+        final SolverServer server = new SolverServer(port, threads, queue, new SearchLimits(maxStates, maxMillis, 0, maxOffHeapBytes),
+                new SolutionCache(cacheEntries), sink);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {         //on Ctrl-C, answer what was accepted first
+            try{
+                server.stop();
+                if(sink != null) sink.close();
+            }
+            catch(Exception e){
+                e.printStackTrace();
+            }
+        }));
+        server.start();
+        System.out.println("Solver listening on http://127.0.0.1:" + server.getPort() + "/solve with " + threads + " workers");
+    }
+}
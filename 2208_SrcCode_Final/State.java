@@ -9,14 +9,26 @@
 /*
 This class represents a state in the blocksworld (ie, a specific configuration of tiles in the board). It has methods
 to make the agent perform a move and other variables used by other classes.
+The configuration is not stored as a Block[][] grid: only the cells of A, B, C and the agent matter (every other cell
+is empty), so the four cell indexes (cell = y * gridDimension + x) are packed 16 bits each into a single long.
+A state therefore costs one object, moves are O(1) and equality/goal tests compare integers.
  */
 
 public class State {
 
-    private Block[][] blocks;               //grid, array of arrays of Blocks [ie rows and columns for a 2D coord space]
+    public static final int A = 0;          //tile identifiers, also the 16-bit slot of each tile in the packed long
+    public static final int B = 1;
+    public static final int C = 2;
+    public static final int AGENT = 3;
+
+    public static final int MAX_GRID_DIMENSION = 256;           //16 bits per cell index, so at most 256x256 cells
+    public static final long TILES_MASK = 0x0000FFFFFFFFFFFFL;  //bits holding A/B/C only (agent excluded)
+    public static final long NO_MOVE = -1L;                     //returned by move() when the move is not allowed
+    public static final Move[] EXPANSION_ORDER = {Move.UP, Move.DOWN, Move.LEFT, Move.RIGHT};     //as Node.checkMoves()
+
+    private long packed;                    //cells of A (bits 0-15), B (16-31), C (32-47) and agent (48-63)
     public int gridDimension;               //block array (grid) dimension (ie, if 4, then it will be 4x4)
     private int maxArrDim;                  //max array actual dimension (will be set to grid dimension -1)
-    public Block agent, a, b, c;            //blocks for tiles A,B,C and agent.
 
 
     public State(int xa, int ya, int xb, int yb, int xc, int yc, int xAg, int yAg, int worldSize) throws IllegalArgumentException{
@@ -29,7 +41,12 @@ public class State {
         check if any tiles (including the agent) have been given same positions. Throw an Exception in any case.
          */
 
-        if(xa > maxArrDim || xb > maxArrDim || xc > maxArrDim || xAg > maxArrDim || ya > maxArrDim || yb > maxArrDim || yc > maxArrDim || yAg > maxArrDim ||
+        if(worldSize < 1 || worldSize > MAX_GRID_DIMENSION){
+
+            throw new IllegalArgumentException("Error: the world size has to be between 1 and " + MAX_GRID_DIMENSION);
+
+        }
+        else if(xa > maxArrDim || xb > maxArrDim || xc > maxArrDim || xAg > maxArrDim || ya > maxArrDim || yb > maxArrDim || yc > maxArrDim || yAg > maxArrDim ||
                 xa < 0 || xb < 0 || xc < 0 || xAg < 0 || ya < 0 || yb < 0 || yc < 0 || yAg < 0){
 
             throw new IllegalArgumentException("Error: one of the parameters for the tiles is invalid. The minimum x/y position" +
@@ -48,168 +65,209 @@ public class State {
                     "that the x/y parameters provided for the agent differ!");
 
         }
-        else{       //if all parameters correct, initialise and insert empty tiles and A/B/C/agent tiles in array
-            blocks = new Block[gridDimension][gridDimension];
-            agent = new Block("X",xAg,yAg);         //create the four blocks, agent to be identified by the letter "X"
-            a = new Block("A",xa,ya);
-            b = new Block("B",xb,yb);
-            c = new Block("C",xc,yc);
-
-            for(int i=0;i<gridDimension;i++){
-                for(int j=0;j<gridDimension;j++){
-                    setPosition(i,j,new Block("Empty",i,j));        //set all tiles to be empty tiles
-                }
-            }
+        else{       //if all parameters correct, pack the positions of A/B/C/agent
+            packed = pack(ya * worldSize + xa, yb * worldSize + xb, yc * worldSize + xc, yAg * worldSize + xAg);
+        }
+        created(worldSize);
+
+    }
+
+    public State(long packed, int worldSize){       //create a state straight from a packed configuration (no checks)
+        this.packed = packed;
+        this.gridDimension = worldSize;
+        this.maxArrDim = worldSize - 1;
+        created(worldSize);
+    }
 
-            setPosition(xa,ya,a);           //set the positions of the tiles
-            setPosition(xb,yb,b);
-            setPosition(xc,yc,c);
-            setPosition(xAg,yAg,agent);
+    private static void created(int worldSize){     //JFR event of the constructors, free unless enabled (see StateCreatedEvent)
+        StateCreatedEvent event = new StateCreatedEvent();
+        if(event.isEnabled()){
+            event.gridDimension = worldSize;
+            event.commit();
         }
+    }
+
+    public State(State state){                  //copy constructor, used when generating successors
+        this(state.packed, state.gridDimension);
+    }
 
+    public long getPacked(){
+        return packed;
+    }
+
+    public int getXPos(int tile){               //x/y coordinates of a tile (A, B, C or AGENT)
+        return cell(packed, tile) % gridDimension;
+    }
+
+    public int getYPos(int tile){
+        return cell(packed, tile) / gridDimension;
     }
 
     /*
-        Method to set a block of the array to be at the passed coordinates and with the passed block
+    Method returning a Block representing the given tile (created on demand, the state itself does not keep Blocks)
      */
-    public void setPosition(int x, int y, Block block){
-        blocks[x][y] = block;
+    public Block getBlock(int tile){
+        String name = tile == AGENT ? "X" : String.valueOf((char) ('A' + tile));
+        return new Block(name, getXPos(tile), getYPos(tile));
     }
 
     public String toString(){           //override Object toString method, this one will return cells' positions as a String
 
-        return "The blocks are in the following positions: A - (" + a.getXPos() + "," + a.getYPos() + ")" +
-                ", B - (" + b.getXPos() + "," + b.getYPos() + ")" +
-                ", C - (" + c.getXPos() + "," + c.getYPos() + ")" +
-                ", Agent (X) - (" + agent.getXPos() + "," + agent.getYPos() + ")";
+        return "The blocks are in the following positions: A - (" + getXPos(A) + "," + getYPos(A) + ")" +
+                ", B - (" + getXPos(B) + "," + getYPos(B) + ")" +
+                ", C - (" + getXPos(C) + "," + getYPos(C) + ")" +
+                ", Agent (X) - (" + getXPos(AGENT) + "," + getYPos(AGENT) + ")";
 
     }
 
     /*
         Method to compare the current state to the goal state (positions of A,B,C,Agent being fixed) by comparing the
-        Strings representing those tiles' positions
+        packed positions of those tiles
      */
     public boolean compareTo(State state){
-        return (this.a.getPosition().equals(state.a.getPosition())
-                && this.b.getPosition().equals(state.b.getPosition())
-                && this.c.getPosition().equals(state.c.getPosition())
-                && this.agent.getPosition().equals(state.agent.getPosition()));
+        return this.packed == state.packed;
     }
 
     /*
     Method to compare the current state to the goal state (where the agent can end anywhere, with only A/B/C being fixed),
-    works similarly to compareTo(State state).
+    works similarly to compareTo(State state) but ignores the agent's bits.
      */
     public boolean equalToGoal(State goal){
-        return (this.a.getPosition().equals(goal.a.getPosition())
-                && this.b.getPosition().equals(goal.b.getPosition())
-                && this.c.getPosition().equals(goal.c.getPosition()));
+        return ((this.packed ^ goal.packed) & TILES_MASK) == 0;
     }
 
 
     /*
-    Method to make the agent move. It analyses the passed move, then utilises a switch block to determine the action to
-    take. For each move, if it is permitted (ie, the agent is within the boundaries where that move can be achieved) then
-    a temporary block is created with the position of the tile the agent has to shift with. Both the agent and the other
-    tile are shifted and their positions are set. True is returned if the move is possible, false otherwise.
+    Method to make the agent move. If the move is permitted (ie, the agent is within the boundaries where that move can
+    be achieved) the agent takes the target cell and whichever tile was there takes the agent's old cell.
+    True is returned if the move is possible, false otherwise.
      */
     public boolean moveAgent(Move move) throws IllegalArgumentException {
 
+        long moved = move(packed, move, gridDimension);
+        if(moved == NO_MOVE) return false;
+
+        packed = moved;
+        return true;
+
+    }
+
+    /*
+    Static helpers working on packed configurations directly, so that callers can manipulate states without creating
+    State objects.
+     */
+    public static long pack(int cellA, int cellB, int cellC, int cellAgent){
+        return (long) cellA | ((long) cellB << 16) | ((long) cellC << 32) | ((long) cellAgent << 48);
+    }
+
+    /*
+    Returns the number of distinct configurations in a grid of the given size: four distinct cells (A, B, C, agent)
+    chosen in order among gridDimension^2. From 235x235 the count does not fit in a long, Long.MAX_VALUE is returned.
+     */
+    public static long stateCount(int gridDimension){
+        long cells = (long) gridDimension * gridDimension;
+        try{
+            return Math.multiplyExact(Math.multiplyExact(cells * (cells - 1), cells - 2), cells - 3);
+        }
+        catch(ArithmeticException e){
+            return Long.MAX_VALUE;
+        }
+    }
+
+    /*
+    Returns the sum of the Manhattan distances of A, B and C between the two packed configurations. The agent is not
+    counted (see Node.getCostEstimate()): each move shifts at most one tile by one cell, so the estimate is consistent.
+     */
+    public static int manhattan(long packed, long goal, int gridDimension){
+        int total = 0;
+        for(int tile = A; tile <= C; tile++){
+            int from = cell(packed, tile);
+            int to = cell(goal, tile);
+            total += Math.abs(from % gridDimension - to % gridDimension) + Math.abs(from / gridDimension - to / gridDimension);
+        }
+        return total;
+    }
+
+    public static int cell(long packed, int tile){
+        return (int) (packed >>> (tile << 4)) & 0xFFFF;
+    }
+
+    /*
+    Methods filling the buffer with the successors of a configuration (this one, or a packed one), in the order of
+    EXPANSION_ORDER (the one of Node.checkMoves()), skipping the moves leaving the grid and the passed move (eg the
+    opposite of the last move, null for none). Return the number of successors.
+     */
+    public int expand(SuccessorBuffer buffer){
+        return expand(packed, gridDimension, null, buffer);
+    }
+
+    public static int expand(long packed, int gridDimension, Move skip, SuccessorBuffer buffer){
+        return expand(packed, gridDimension, skip, EXPANSION_ORDER, buffer);
+    }
+
+    public static int expand(long packed, int gridDimension, Move skip, Move[] order, SuccessorBuffer buffer){     //moves tried in the given order
+        buffer.clear();
+        for(Move move : order){
+            if(move == skip) continue;
+            long next = move(packed, move, gridDimension);
+            if(next != NO_MOVE) buffer.add(move, next);
+        }
+        return buffer.size();
+    }
+
+    /*
+    Returns the packed configuration obtained by moving the agent of the passed one, or NO_MOVE if the agent would
+    leave the grid. The tile (if any) sitting on the target cell swaps with the agent.
+     */
+    public static long move(long packed, Move move, int gridDimension){
+
+        int agentCell = cell(packed, AGENT);
+        int target;
+
         switch(move){
             case UP:
-                if(agent.getYPos() == 0) return false;
-                else{
-                    int newYPos = agent.getYPos() - 1;
-                    Block old = blocks[agent.getXPos()][newYPos];
-                    blocks[agent.getXPos()][agent.getYPos()] = old;
-                    old.setYPos(agent.getYPos());
-                    blocks[agent.getXPos()][newYPos] = agent;
-                    agent.setYPos(newYPos);
-
-                    return true;
-                }
+                if(agentCell < gridDimension) return NO_MOVE;
+                target = agentCell - gridDimension;
+                break;
             case DOWN:
-                if(agent.getYPos() == maxArrDim) return false;
-                else{
-                    int newYPos = agent.getYPos() + 1;
-                    Block old = blocks[agent.getXPos()][newYPos];
-                    blocks[agent.getXPos()][agent.getYPos()] = old;
-                    old.setYPos(agent.getYPos());
-                    blocks[agent.getXPos()][newYPos] = agent;
-                    agent.setYPos(newYPos);
-
-                    return true;
-                }
+                if(agentCell >= gridDimension * (gridDimension - 1)) return NO_MOVE;
+                target = agentCell + gridDimension;
+                break;
             case LEFT:
-                if(agent.getXPos() == 0) return false;
-                else{
-                    int newXPos = agent.getXPos() - 1;
-                    Block old = blocks[newXPos][agent.getYPos()];
-                    blocks[agent.getXPos()][agent.getYPos()] = old;
-                    old.setXPos(agent.getXPos());
-                    blocks[newXPos][agent.getYPos()] = agent;
-                    agent.setXPos(newXPos);
-
-                    return true;
-                }
+                if(agentCell % gridDimension == 0) return NO_MOVE;
+                target = agentCell - 1;
+                break;
             case RIGHT:
-                if(agent.getXPos() == maxArrDim) return false;
-                else{
-                    int newXPos = agent.getXPos() + 1;
-                    Block old = blocks[newXPos][agent.getYPos()];
-                    blocks[agent.getXPos()][agent.getYPos()] = old;
-                    old.setXPos(agent.getXPos());
-                    blocks[newXPos][agent.getYPos()] = agent;
-                    agent.setXPos(newXPos);
-
-                    return true;
-                }
+                if(agentCell % gridDimension == gridDimension - 1) return NO_MOVE;
+                target = agentCell + 1;
+                break;
+            default:
+                return NO_MOVE;
         }
-        return false;
 
-    }
-
-    /*
-        Method used to print the board's state at any time (used for testing purposes only)
-
-    public void performTests(){
-        for(Block[] blockArr : blocks){
-            for(Block block : blockArr){
-                if(block != null){
-                    System.out.println("Now in position " + block.getXPos() + "," + block.getYPos() + " we have " + block.getName());
-                }
-                else{
-                    System.out.println("NULL BLOCK");
-                }
+        for(int tile = A; tile <= C; tile++){           //swap the tile on the target cell (if any) with the agent
+            if(cell(packed, tile) == target){
+                packed = (packed & ~(0xFFFFL << (tile << 4))) | ((long) agentCell << (tile << 4));
+                break;
             }
         }
+
+        return (packed & ~(0xFFFFL << 48)) | ((long) target << 48);
     }
-     */
+
     @Override
-    public boolean equals(Object o) {       //generated automatically
+    public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
 
         State state = (State) o;
 
-        if (gridDimension != state.gridDimension) return false;
-        if (maxArrDim != state.maxArrDim) return false;
-        if (a != null ? !a.equals(state.a) : state.a != null) return false;
-        if (agent != null ? !agent.equals(state.agent) : state.agent != null) return false;
-        if (b != null ? !b.equals(state.b) : state.b != null) return false;
-        if (c != null ? !c.equals(state.c) : state.c != null) return false;
-
-        return true;
+        return gridDimension == state.gridDimension && packed == state.packed;
     }
 
     @Override
-    public int hashCode() {                 //generated automatically
-        int result = gridDimension;
-        result = 31 * result + maxArrDim;
-        result = 31 * result + (agent != null ? agent.hashCode() : 0);
-        result = 31 * result + (a != null ? a.hashCode() : 0);
-        result = 31 * result + (b != null ? b.hashCode() : 0);
-        result = 31 * result + (c != null ? c.hashCode() : 0);
-        return result;
+    public int hashCode() {
+        long h = packed * 0x9E3779B97F4A7C15L;        //spread the packed bits (cells are small, clustered integers)
+        return (int) (h ^ (h >>> 32)) + 31 * gridDimension;
     }
 }
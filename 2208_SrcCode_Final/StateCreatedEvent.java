@@ -0,0 +1,32 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * AUTHOR: Roberto J Gregoratti - rjg1g12@ecs.soton.ac.uk , University of Southampton ECS
+ * PROJECT: COMP2208 Search Methods assignment (BlocksWorld coursework)
+ * VERSION: v1.0
+ * DATE: Jan 2014
+ * CLASS: StateCreatedEvent (Java Flight Recorder event, a State object created)
+ */
+
+/*
+This class is the JFR event of every State constructed, to find the code still allocating States per node. Disabled
+by default, see CheckMovesEvent for enabling it; with stack traces enabled as well, the recording tells which
+callers create them.
+ */
+
+@Name("blocksworld.StateCreated")
+@Label("State Created")
+@Category("BlocksWorld")
+@Description("A State object constructed")
+@Enabled(false)
+@StackTrace(false)
+public class StateCreatedEvent extends jdk.jfr.Event {
+
+    @Label("Grid Dimension")
+    int gridDimension;
+}
@@ -0,0 +1,79 @@
+/**
+ * AUTHOR: Roberto J Gregoratti - rjg1g12@ecs.soton.ac.uk , University of Southampton ECS
+ * PROJECT: COMP2208 Search Methods assignment (BlocksWorld coursework)
+ * VERSION: v1.0
+ * DATE: Jan 2014
+ * CLASS: StateRanker (dense ranking of packed configurations, for tables indexed by state)
+ */
+
+/*
+This class maps every configuration of a grid to a distinct rank in 0..State.stateCount(gridDimension)-1 and back.
+A configuration is an ordered choice of four distinct cells (A, B, C, agent) among the n^2 of the grid, so it is
+ranked as a number in a mixed radix (n^2, n^2-1, n^2-2, n^2-3): each cell is replaced by its index among the cells
+not taken by the tiles before it. The ranks are dense, with no gap for the impossible configurations with two tiles
+on the same cell, so a table indexed by rank has exactly one entry per state. The ranks are longs, so grids larger
+than MAX_GRID_DIMENSION (whose State.stateCount() does not fit in one) cannot be ranked.
+ */
+
+public class StateRanker {
+
+    private final int gridDimension;
+    private final int cells;
+
+    public static final int MAX_GRID_DIMENSION = 234;      //largest grid whose number of states fits in a long
+
+    public StateRanker(int gridDimension){
+        if(gridDimension < 2 || gridDimension > MAX_GRID_DIMENSION){
+            throw new IllegalArgumentException("Error: the world size has to be between 2 and " + MAX_GRID_DIMENSION
+                    + " to rank its states");
+        }
+        this.gridDimension = gridDimension;
+        this.cells = gridDimension * gridDimension;
+    }
+
+    public long rank(long packed){
+        int a = State.cell(packed, State.A);
+        int b = State.cell(packed, State.B);
+        int c = State.cell(packed, State.C);
+        int d = State.cell(packed, State.AGENT);
+
+        int b1 = b - (b > a ? 1 : 0);                   //index among the cells left after the tiles before
+        int c1 = c - (c > a ? 1 : 0) - (c > b ? 1 : 0);
+        int d1 = d - (d > a ? 1 : 0) - (d > b ? 1 : 0) - (d > c ? 1 : 0);
+        return ((a * (long) (cells - 1) + b1) * (cells - 2) + c1) * (cells - 3) + d1;
+    }
+
+    public long unrank(long rank){
+        int d1 = (int) (rank % (cells - 3));
+        rank /= cells - 3;
+        int c1 = (int) (rank % (cells - 2));
+        rank /= cells - 2;
+        int b1 = (int) (rank % (cells - 1));
+        int a = (int) (rank / (cells - 1));
+
+        int b = b1 >= a ? b1 + 1 : b1;
+        int c = skip(c1, Math.min(a, b), Math.max(a, b), cells);
+        int low = Math.min(a, Math.min(b, c)), high = Math.max(a, Math.max(b, c));
+        int middle = a + b + c - low - high;
+        int d = skip(skip(d1, low, middle, cells), high, cells, cells);
+        return State.pack(a, b, c, d);
+    }
+
+    public long size(){                     //number of ranks
+        return State.stateCount(gridDimension);
+    }
+
+    public int getGridDimension(){
+        return gridDimension;
+    }
+
+    /*
+    Returns the cell of the given index among the cells other than low and high (low < high, high may be out of the
+    grid when only one cell is taken)
+     */
+    private static int skip(int index, int low, int high, int cells){
+        if(index >= low) index++;
+        if(index >= high && high < cells) index++;
+        return index;
+    }
+}
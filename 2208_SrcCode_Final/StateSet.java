@@ -0,0 +1,28 @@
+/**
+ * AUTHOR: Roberto J Gregoratti - rjg1g12@ecs.soton.ac.uk , University of Southampton ECS
+ * PROJECT: COMP2208 Search Methods assignment (BlocksWorld coursework)
+ * VERSION: v1.0
+ * DATE: Jan 2014
+ * CLASS: StateSet (set of packed states, the closed list of BFS and DFS)
+ */
+
+/*
+Interface of the sets of packed states used as closed lists: LongHashSet, a hashed set growing with the states
+added, and RankBitmapSet, one bit for every state of the grid. bytes() is the heap memory held by the set, which is
+what the searches check against their memory budget.
+ */
+
+public interface StateSet {
+
+    boolean add(long packed);           //true if the state was not in the set already
+
+    boolean contains(long packed);
+
+    int size();
+
+    long getProbes();                   //lookups made, for the probes/sec column
+
+    long bytes();
+
+    void clear();
+}
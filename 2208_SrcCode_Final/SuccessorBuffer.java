@@ -0,0 +1,44 @@
+/**
+ * AUTHOR: Roberto J Gregoratti - rjg1g12@ecs.soton.ac.uk , University of Southampton ECS
+ * PROJECT: COMP2208 Search Methods assignment (BlocksWorld coursework)
+ * VERSION: v1.0
+ * DATE: Jan 2014
+ * CLASS: SuccessorBuffer (reusable holder of the successors of a packed state, filled by State.expand())
+ */
+
+/*
+This class holds the successors of one state as (move, packed successor) pairs, at most one per Move. A search
+keeps one buffer (or one per depth for a recursive one) and has State.expand() refill it at every expansion, so
+generating successors allocates nothing: no list, State, Node or direction String is created, unlike with
+Node.checkMoves(). The contents are only valid until the next expand() into the same buffer.
+ */
+
+public class SuccessorBuffer {
+
+    public static final int CAPACITY = 4;           //one successor per move at most
+
+    private final long[] states = new long[CAPACITY];
+    private final Move[] moves = new Move[CAPACITY];
+    private int size;
+
+    public int size(){
+        return size;
+    }
+
+    public long getState(int i){                    //packed successor
+        return states[i];
+    }
+
+    public Move getMove(int i){                     //move leading to it
+        return moves[i];
+    }
+
+    void clear(){
+        size = 0;
+    }
+
+    void add(Move move, long packed){
+        moves[size] = move;
+        states[size++] = packed;
+    }
+}
@@ -1,5 +1,4 @@
 import java.io.File;
-import java.io.PrintStream;
 
 /**
  * AUTHOR: Roberto J Gregoratti - rjg1g12@ecs.soton.ac.uk , University of Southampton ECS
@@ -12,15 +11,22 @@ import java.io.PrintStream;
 /*
 This class is a test harness written to firstly test that the 'infrastructure' for the blocksworld worked, then to create
 and initialise different worlds to do their searches. There are some booleans to store the feasibility of the various
-searches which will be toggled to change to false when those searches run out of memory space, and methods to create
-different worlds (automated) and initialise them to perform their searches.
+searches which will be toggled to change to false when those searches go over their memory budget (half the heap,
+so the JVM is never run out of memory), and methods to create different worlds (automated) and initialise them to
+perform their searches.
  */
 public class TestHarness {
 
     static boolean dfsOK = true;        //booleans representing search feasibility
     static boolean bfsOK = true;
+    static boolean parBfsOK = true;
+    static boolean frontierOK = true;
+    static boolean bidiOK = true;
     static boolean idsOK = true;
     static boolean heurOK = true;
+    static boolean hdaOK = true;
+    static boolean idaOK = true;
+    static boolean pdbOK = true;
 
     public static void main(String[] args) throws Exception{
         try{                                            //test to see if states created properly (error checking done previously)
@@ -67,10 +73,15 @@ public class TestHarness {
 
             */
 
-            PrintStream out = new PrintStream(new File("SearchResultsAgent.csv"));      //stream to print results to file
-
-            for(int i=4;i<=20;i++){             //create worlds (grids) to perform tests/searches on, sizes 4x4 to 20x20
-                createSizedWorld(i,out);
+            //results written to file as CSV by a background thread, so the searches never wait for the disk
+            ResultSink sink = new AsyncResultSink(new CsvResultSink(new File("SearchResultsAgent.csv")));
+            try{
+                for(int i=4;i<=20;i++){             //create worlds (grids) to perform tests/searches on, sizes 4x4 to 20x20
+                    createSizedWorld(i,sink);
+                }
+            }
+            finally{
+                sink.close();
             }
 
         }
@@ -87,14 +98,16 @@ public class TestHarness {
     bottom right corner. The end state will always be with the agent in the bottom right corner and the stacked tiles
     in the bottom three tiles of the second column.
  */
-    public static void createSizedWorld(int size,PrintStream out) throws Exception{
+    public static void createSizedWorld(int size,ResultSink sink) throws Exception{
         //Create the world (grid) of the specified tiles, with the tiles' positions fixed for start and end
         int minusOne = size - 1;        //helper variables for board state creation
         int minusTwo = size - 2;
         int minusThree = size - 3;
         BlocksWorld temp = new BlocksWorld(0,minusOne,1,minusOne,2,minusOne, minusOne, minusOne,1,minusThree,1,minusTwo,
-                1,minusOne,minusOne,minusOne,size,out);
+                1,minusOne,minusOne,minusOne,size,null);
         //created using set parameters (read method documentation, above)
+        temp.setResultSink(sink);
+        temp.setLimits(SearchLimits.heapBudget(0.5));
 
         try{
             performSearches(temp,size);     //try to call the search-performing method, catch any exceptions arising
@@ -108,33 +121,110 @@ public class TestHarness {
     /*
     Method to perform the various searches on the given world and output the results. For every search, check if
     it's still feasible (ie, if boolean hasn't been toggled to false at the earlier iterations), then if it is
-    perform the relative search, catch OOM Exception and return message otherwise, toggling the feasibility boolean
-    to be set to false (not feasible anymore)
+    perform the relative search; a search over its memory budget prints a message and toggles the feasibility boolean
+    to false (not feasible anymore), A* does not as it carries on with IDA* instead
      */
     public static void performSearches(BlocksWorld world, int size) throws Exception{
 
         System.out.println("\n\nBOARD OF SIZE " + size + "x" + size + "NOW RUNNING...");
 
+        try{
+            world.tableSolve(world.current, world.finish);      //only answers if a table has been built for the size
+        }
+        catch(Exception e){
+            e.printStackTrace();
+        }
+
         if(heurOK){
             try{
                 world.heuristic(world.current, world.finish);
             }
-            catch(OutOfMemoryError oome){
-                System.out.println("Heuristic search failed for size " + size + ", out of heap space");
-                heurOK = false;
+            catch(SearchAbortedException e){
+                System.out.println("Heuristic search failed for size " + size + ", " + e.getMessage());
+                if(e.getReason() == SearchAbortedException.Reason.MEMORY) heurOK = false;
             }
             catch(Exception e){
                 e.printStackTrace();
             }
         }
 
+        if(hdaOK){
+            try{
+                world.parallelHeuristic(world.current, world.finish, Runtime.getRuntime().availableProcessors());
+            }
+            catch(SearchAbortedException e){
+                System.out.println("Parallel heuristic search failed for size " + size + ", " + e.getMessage());
+                if(e.getReason() == SearchAbortedException.Reason.MEMORY) hdaOK = false;
+            }
+            catch(Exception e){
+                e.printStackTrace();
+            }
+        }
+
+        if(pdbOK){
+            try{
+                Heuristic pdb = world.patternHeuristic(false);       //max of the pattern databases, built once per size
+                world.heuristic(world.current, world.finish, BucketQueue.TieBreak.HIGH_DEPTH, pdb);
+                world.idaStar(world.current, world.finish, BlocksWorld.IDA_TABLE_ENTRIES, pdb);
+            }
+            catch(SearchAbortedException e){
+                System.out.println("Pattern database searches failed for size " + size + ", " + e.getMessage());
+                if(e.getReason() == SearchAbortedException.Reason.MEMORY) pdbOK = false;
+            }
+            catch(Exception e){
+                e.printStackTrace();
+            }
+        }
+
+        double bfsTime = -1;         //time of the BFS row, the baseline of the parallel BFS speedup
         if(bfsOK){
             try{
+                long start_time = System.currentTimeMillis();
                 world.breadthFirst(world.current, world.finish);
+                bfsTime = System.currentTimeMillis() - start_time;
             }
-            catch(OutOfMemoryError oome){
-                System.out.println("Breadth-first search failed for size " + size + ", out of heap space");
-                bfsOK = false;
+            catch(SearchAbortedException e){
+                System.out.println("Breadth-first search failed for size " + size + ", " + e.getMessage());
+                if(e.getReason() == SearchAbortedException.Reason.MEMORY) bfsOK = false;
+            }
+            catch(Exception e){
+                e.printStackTrace();
+            }
+        }
+
+        if(parBfsOK && bfsTime >= 0){
+            try{
+                world.parallelBreadthFirstSweep(world.current, world.finish, bfsTime);
+            }
+            catch(SearchAbortedException e){
+                System.out.println("Parallel breadth-first search failed for size " + size + ", " + e.getMessage());
+                if(e.getReason() == SearchAbortedException.Reason.MEMORY) parBfsOK = false;
+            }
+            catch(Exception e){
+                e.printStackTrace();
+            }
+        }
+
+        if(frontierOK){
+            try{
+                world.frontierBreadthFirst(world.current, world.finish);
+            }
+            catch(SearchAbortedException e){
+                System.out.println("Frontier breadth-first search failed for size " + size + ", " + e.getMessage());
+                if(e.getReason() == SearchAbortedException.Reason.MEMORY) frontierOK = false;
+            }
+            catch(Exception e){
+                e.printStackTrace();
+            }
+        }
+
+        if(bidiOK){
+            try{
+                world.bidirectionalSearch(world.current, world.finish);
+            }
+            catch(SearchAbortedException e){
+                System.out.println("Bidirectional search failed for size " + size + ", " + e.getMessage());
+                if(e.getReason() == SearchAbortedException.Reason.MEMORY) bidiOK = false;
             }
             catch(Exception e){
                 e.printStackTrace();
@@ -145,9 +235,9 @@ public class TestHarness {
             try{
                 world.depthFirst(world.current, world.finish);
             }
-            catch(OutOfMemoryError oome){
-                System.out.println("Depth-first search failed for size " + size + ", out of heap space");
-                dfsOK = false;
+            catch(SearchAbortedException e){
+                System.out.println("Depth-first search failed for size " + size + ", " + e.getMessage());
+                if(e.getReason() == SearchAbortedException.Reason.MEMORY) dfsOK = false;
             }
             catch(Exception e){
                 e.printStackTrace();
@@ -156,11 +246,24 @@ public class TestHarness {
 
         if(idsOK){
             try{
-                world.iterativeDeepening(world.current, world.finish, null, 0);
+                world.iterativeDeepening(world.current, world.finish);
+            }
+            catch(SearchAbortedException e){
+                System.out.println("Iterative deepening search failed for size " + size + ", " + e.getMessage());
+                if(e.getReason() == SearchAbortedException.Reason.MEMORY) idsOK = false;
+            }
+            catch(Exception e){
+                e.printStackTrace();
+            }
+        }
+
+        if(idaOK){
+            try{
+                world.idaStar(world.current, world.finish);
             }
-            catch(OutOfMemoryError oome){
-                System.out.println("Iterative deepening search failed for size " + size + ", out of heap space");
-                idsOK = false;
+            catch(SearchAbortedException e){
+                System.out.println("IDA* search failed for size " + size + ", " + e.getMessage());
+                if(e.getReason() == SearchAbortedException.Reason.MEMORY) idaOK = false;
             }
             catch(Exception e){
                 e.printStackTrace();
@@ -0,0 +1,30 @@
+/**
+ * AUTHOR: Roberto J Gregoratti - rjg1g12@ecs.soton.ac.uk , University of Southampton ECS
+ * PROJECT: COMP2208 Search Methods assignment (BlocksWorld coursework)
+ * VERSION: v1.0
+ * DATE: Jan 2014
+ * CLASS: TilesGoal (goal test ignoring the agent, see State.equalToGoal())
+ */
+
+/*
+This class is a GoalTest where only A, B and C must be on the cells of the finish state, the agent ending anywhere
+(on any of the cells left free). Up to n*n - 3 configurations match, so the searches usually stop well before the
+exact goal would be reached.
+ */
+
+public class TilesGoal implements GoalTest {
+
+    private final long goal;
+
+    public TilesGoal(State goal){
+        this.goal = goal.getPacked() & State.TILES_MASK;
+    }
+
+    public boolean isGoal(long packed){
+        return (packed & State.TILES_MASK) == goal;
+    }
+
+    public String getName(){
+        return "TILES";
+    }
+}
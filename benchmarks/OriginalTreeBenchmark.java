@@ -0,0 +1,212 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AUTHOR: Roberto J Gregoratti - rjg1g12@ecs.soton.ac.uk , University of Southampton ECS
+ * PROJECT: COMP2208 Search Methods assignment (BlocksWorld coursework)
+ * VERSION: v1.0
+ * DATE: Jan 2014
+ * CLASS: OriginalTreeBenchmark (SearchBenchmark ported to the classes of the original baseline commit)
+ */
+
+/*
+This class runs the benchmarks of SearchBenchmark against the original tree (commit 919b09f, Block[][] states and
+the searches without SearchLimits), so that benchmarks/baseline-919b09f.csv can be compared with later runs. It is
+not part of the source folder: compile it against a checkout of that commit, eg
+
+    git archive 919b09f 2208_SrcCode_Final | tar -x -C /tmp/orig
+    javac -d /tmp/orig/out /tmp/orig/2208_SrcCode_Final/*.java benchmarks/OriginalTreeBenchmark.java
+    java -cp /tmp/orig/out OriginalTreeBenchmark 4 20 -out benchmarks/baseline-919b09f.csv
+
+The basic operations use the same random states (same seeds, same cells) as SearchBenchmark. The original searches
+cannot be stopped, so every search benchmark runs in a child JVM that is killed after SEARCH_SECONDS; a search that
+times out is reported as skipped, for its size and the larger ones.
+
+Usage: java OriginalTreeBenchmark [minSize maxSize] [-out results.csv]
+ */
+
+public class OriginalTreeBenchmark {
+
+    static final int WARMUP_ITERATIONS = 3;
+    static final int MEASURED_ITERATIONS = 5;
+    static final int MICRO_OPS = 200000;
+    static final int SAMPLE_STATES = 1024;
+    static final long SEARCH_SECONDS = 60;     //cap of a whole search benchmark (warmup and measured iterations)
+    static final String[] SEARCHES = { "breadthFirst", "depthFirst", "iterativeDeepening", "heuristic" };
+
+    static volatile long sink;
+
+    interface Operation {
+        long run(int i) throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception{
+        if(args.length == 3 && args[0].equals("-search")){         //child JVM: one search benchmark
+            runSearch(args[1], Integer.parseInt(args[2]), System.out);
+            return;
+        }
+
+        int minSize = 4, maxSize = 20;
+        String outFile = "benchmark_results.csv";
+        for(int i = 0; i < args.length; i++){
+            if(args[i].equals("-out")) outFile = args[++i];
+            else{
+                minSize = Integer.parseInt(args[i]);
+                maxSize = Integer.parseInt(args[++i]);
+            }
+        }
+
+        PrintStream out = new PrintStream(new File(outFile));
+        out.println("benchmark,size,ns_per_op,bytes_per_op");
+        boolean[] timedOut = new boolean[SEARCHES.length];
+        for(int size = minSize; size <= maxSize; size++){
+            benchmarkOperations(size, out);
+            for(int s = 0; s < SEARCHES.length; s++){
+                if(timedOut[s]) System.out.println(SEARCHES[s] + " (" + size + "x" + size + ") skipped: timed out on a smaller grid");
+                else timedOut[s] = !forkSearch(SEARCHES[s], size, out);
+            }
+        }
+        out.close();
+    }
+
+    static void benchmarkOperations(final int size, PrintStream out) throws Exception{
+        final Node[] nodes = randomNodes(size, SAMPLE_STATES, new Random(size));
+        final Move[] moves = Move.values();
+        final Move[] opposite = { Move.UP, Move.RIGHT, Move.LEFT, Move.DOWN };
+        final int mask = SAMPLE_STATES - 1;
+        final Node target = createSizedWorld(size).finish;
+
+        report("checkMoves", size, MICRO_OPS, i -> nodes[i & mask].checkMoves().size(), out);
+        report("moveAgent", size, MICRO_OPS, i -> {
+            State state = nodes[i & mask].getState();
+            boolean moved = state.moveAgent(moves[i & 3]);
+            if(moved) state.moveAgent(opposite[i & 3]);
+            return moved ? 1 : 0;
+        }, out);
+        report("compareTo", size, MICRO_OPS, i -> nodes[i & mask].getState().compareTo(nodes[(i + 1) & mask].getState()) ? 1 : 0, out);
+        report("getCostEstimate", size, MICRO_OPS, i -> {
+            nodes[i & mask].getCostEstimate(target);        //no getter for the estimate in the original Node
+            return i;
+        }, out);
+    }
+
+    /*
+    Method to run one search benchmark in a child JVM, copying its CSV line. Returns false if it was killed.
+     */
+    static boolean forkSearch(String name, int size, PrintStream out) throws Exception{
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        List<String> command = new ArrayList<String>();
+        command.add(java);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(OriginalTreeBenchmark.class.getName());
+        command.add("-search");
+        command.add(name);
+        command.add(Integer.toString(size));
+        Process child = new ProcessBuilder(command).redirectErrorStream(true).start();
+
+        final List<String> lines = new ArrayList<String>();
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(child.getInputStream()));
+        Thread pump = new Thread(() -> {
+            try{
+                String line;
+                while((line = reader.readLine()) != null) lines.add(line);
+            }
+            catch(Exception e){
+                //child killed
+            }
+        });
+        pump.start();
+
+        if(!child.waitFor(SEARCH_SECONDS, TimeUnit.SECONDS)){
+            child.destroyForcibly().waitFor();
+            pump.join();
+            System.out.println(name + " (" + size + "x" + size + ") skipped: more than " + SEARCH_SECONDS + "s");
+            return false;
+        }
+        pump.join();
+        for(String line : lines){
+            if(line.startsWith(name + ",")) out.println(line);
+            else System.out.println(line);
+        }
+        return true;
+    }
+
+    static void runSearch(String name, int size, PrintStream csv) throws Exception{
+        final BlocksWorld world = createSizedWorld(size);
+        Operation operation;
+        if(name.equals("breadthFirst")) operation = i -> world.breadthFirst(world.current, world.finish).getDepth();
+        else if(name.equals("depthFirst")) operation = i -> world.depthFirst(world.current, world.finish).getDepth();
+        else if(name.equals("iterativeDeepening")) operation = i -> world.iterativeDeepening(world.current, world.finish, null, 0).getDepth();
+        else operation = i -> world.heuristic(world.current, world.finish).getDepth();
+
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(new java.io.ByteArrayOutputStream()));   //keep the searches' output off the csv
+        try{
+            report(name, size, 1, operation, csv);
+        }
+        finally{
+            System.setOut(console);
+        }
+    }
+
+    static BlocksWorld createSizedWorld(int size) throws Exception{
+        int minusOne = size - 1, minusTwo = size - 2, minusThree = size - 3;
+        return new BlocksWorld(0,minusOne,1,minusOne,2,minusOne, minusOne, minusOne,1,minusThree,1,minusTwo,
+                1,minusOne,minusOne,minusOne,size,new PrintStream(new java.io.ByteArrayOutputStream()));
+    }
+
+    static void report(String name, int size, int ops, Operation operation, PrintStream out) throws Exception{
+        for(int i = 0; i < WARMUP_ITERATIONS; i++) iteration(ops, operation);
+        double nanos = 0, bytes = 0;
+        for(int i = 0; i < MEASURED_ITERATIONS; i++){
+            double[] result = iteration(ops, operation);
+            nanos += result[0];
+            bytes += result[1];
+        }
+        out.println(name + "," + size + "," + String.format("%.1f", nanos / MEASURED_ITERATIONS) + ","
+                + String.format("%.1f", bytes / MEASURED_ITERATIONS));
+        if(out != System.out) System.out.println(String.format("%-20s %2dx%-2d %14.1f ns/op %14.1f B/op", name, size, size,
+                nanos / MEASURED_ITERATIONS, bytes / MEASURED_ITERATIONS));
+    }
+
+    static double[] iteration(int ops, Operation operation) throws Exception{
+        long bytesBefore = allocatedBytes();
+        long start = System.nanoTime();
+        long acc = 0;
+        for(int i = 0; i < ops; i++) acc += operation.run(i);
+        long time = System.nanoTime() - start;
+        long bytes = allocatedBytes() - bytesBefore;
+        sink += acc;
+        return new double[]{ (double) time / ops, (double) bytes / ops };
+    }
+
+    static long allocatedBytes(){
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /*
+    Method to create the same random states as SearchBenchmark.randomNodes() (cell = y * size + x)
+     */
+    static Node[] randomNodes(int size, int count, Random random){
+        int cells = size * size;
+        Node[] nodes = new Node[count];
+        for(int i = 0; i < count; i++){
+            int a = random.nextInt(cells), b, c, agent;
+            do{ b = random.nextInt(cells); } while(b == a);
+            do{ c = random.nextInt(cells); } while(c == a || c == b);
+            do{ agent = random.nextInt(cells); } while(agent == a || agent == b || agent == c);
+            nodes[i] = new Node(new State(a % size, a / size, b % size, b / size, c % size, c / size,
+                    agent % size, agent / size, size));
+        }
+        return nodes;
+    }
+}